@@ -0,0 +1,100 @@
+package com.example.demo.elastic;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a bulk of {@link AccessLog} documents: one {@code XContentBuilder} per document
+ * through {@link AccessLogIndexer#toSource(AccessLog)}, as the indexer does, against the whole NDJSON
+ * bulk body streamed by a single Jackson generator into a reused buffer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AccessLogBulkBenchmark {
+
+    @Param({"1000"})
+    public int documents;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(1 << 20);
+    private AccessLogIndexer indexer;
+    private DateTimeFormatter createdFormat;
+    private List<AccessLog> accessLogs;
+
+    @Setup
+    public void setUp() {
+        AccessLogProperties properties = new AccessLogProperties();
+        // [NOTE] The client is only used when a bulk is sent, which never happens here.
+        indexer = new AccessLogIndexer(null, properties);
+        createdFormat = AccessLogIndexer.CREATED_FORMAT.withZone(properties.getZone());
+        accessLogs = new ArrayList<>(documents);
+        Instant now = Instant.now();
+        for (int i = 0; i < documents; i++) {
+            accessLogs.add(new AccessLog("10.0.%d.%d".formatted(i / 256 % 256, i % 256), i % 4 == 0 ? "POST" : "GET",
+                    "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0 Safari/537.36",
+                    "HTTP/1.1", "user-" + i % 100, "/api/devices/" + i % 50 + "/telemetry", now.plusMillis(i)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        indexer.destroy();
+    }
+
+    @Benchmark
+    public long xContentPerDocument() {
+        BulkRequest request = new BulkRequest();
+        for (AccessLog accessLog : accessLogs) {
+            request.add(new IndexRequest(indexer.indexName(accessLog)).source(indexer.toSource(accessLog)));
+        }
+        return request.estimatedSizeInBytes();
+    }
+
+    @Benchmark
+    public int jacksonNdjsonBody() throws IOException {
+        body.reset();
+        try (JsonGenerator generator = jsonFactory.createGenerator(body, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            for (AccessLog accessLog : accessLogs) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("index");
+                generator.writeStringField("_index", indexer.indexName(accessLog));
+                generator.writeEndObject();
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                generator.writeStartObject();
+                generator.writeStringField("ip", accessLog.getIp());
+                generator.writeStringField("method", accessLog.getMethod());
+                generator.writeStringField("user_agent", accessLog.getUserAgent());
+                generator.writeStringField("protocol", accessLog.getProtocol());
+                generator.writeStringField("uid", accessLog.getUid());
+                generator.writeStringField("uri", accessLog.getUri());
+                generator.writeStringField("created", createdFormat.format(accessLog.getCreated()));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+        }
+        return body.size();
+    }
+}
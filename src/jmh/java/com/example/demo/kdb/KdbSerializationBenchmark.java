@@ -0,0 +1,85 @@
+package com.example.demo.kdb;
+
+import com.kx.c;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IPC serialization of a batch of trades with {@link c#serialize(int, Object, boolean)}: one message per row
+ * as a mixed list, against one message with the batch drained from a {@link KdbTableBuffer} as a table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class KdbSerializationBenchmark {
+
+    private static final String TABLE = "trade";
+    private static final String FUNCTION = ".u.upd";
+    private static final String[] NAMES = {"time", "sym", "price", "size"};
+    private static final KdbColumnType[] TYPES = {KdbColumnType.TIMESTAMP, KdbColumnType.SYMBOL, KdbColumnType.FLOAT, KdbColumnType.LONG};
+    private static final String[] SYMBOLS = {"AAPL", "MSFT", "GOOG", "AMZN", "NVDA"};
+
+    @Param({"100", "10000"})
+    public int rows;
+
+    private final c connection = new c();
+    private KdbTableBuffer buffer;
+    private long[] times;
+    private double[] prices;
+    private long[] sizes;
+
+    @Setup
+    public void setUp() {
+        // [NOTE] The writer is only used on a full buffer, which a batch size above the row count never reaches.
+        buffer = new KdbTableBuffer(null, TABLE, NAMES, TYPES, Integer.MAX_VALUE);
+        times = new long[rows];
+        prices = new double[rows];
+        sizes = new long[rows];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < rows; i++) {
+            times[i] = now + i;
+            prices[i] = 100 + i * 0.01;
+            sizes[i] = i % 1000;
+        }
+    }
+
+    @Benchmark
+    public long rowPerMessage() throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < rows; i++) {
+            Object[] row = {new Timestamp(times[i]), SYMBOLS[i % SYMBOLS.length], prices[i], sizes[i]};
+            bytes += connection.serialize(1, new Object[]{FUNCTION.toCharArray(), TABLE, row}, false).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long columnarBatch() throws IOException {
+        for (int i = 0; i < rows; i++) {
+            buffer.beginRow();
+            buffer.setTimestamp(0, times[i] * 1_000_000L)
+                    .setSymbol(1, SYMBOLS[i % SYMBOLS.length])
+                    .setFloat(2, prices[i])
+                    .setLong(3, sizes[i]);
+            buffer.endRow();
+        }
+        c.Flip batch;
+        buffer.lock.lock();
+        try {
+            batch = buffer.drain();
+        } finally {
+            buffer.lock.unlock();
+        }
+        return connection.serialize(1, new Object[]{FUNCTION.toCharArray(), TABLE, batch, buffer.getTimestampColumns()}, false).length;
+    }
+}
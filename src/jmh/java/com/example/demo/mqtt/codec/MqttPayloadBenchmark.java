@@ -0,0 +1,83 @@
+package com.example.demo.mqtt.codec;
+
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.messaging.Message;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning an inbound Paho message into a decoded {@link BinaryRecord}: through the converter
+ * with a {@code String} payload (the converter default), through the converter with a {@code byte[]}
+ * payload (what the inbound adapters use), and straight from the raw bytes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MqttPayloadBenchmark {
+
+    private static final String TOPIC = "sensors/1/telemetry";
+
+    private DefaultPahoMessageConverter stringConverter;
+    private DefaultPahoMessageConverter bytesConverter;
+    private PayloadCodecRegistry registry;
+    private BinaryRecordCodec codec;
+    private MqttMessage mqttMessage;
+
+    @Setup
+    public void setUp() {
+        stringConverter = new DefaultPahoMessageConverter(1, false);
+        bytesConverter = new DefaultPahoMessageConverter(1, false);
+        bytesConverter.setPayloadAsBytes(true);
+        codec = new BinaryRecordCodec(new BinaryRecordPool(16));
+        registry = new PayloadCodecRegistry(List.of(codec, new RawPayloadCodec()),
+                Map.of("sensors/+/telemetry", BinaryRecordCodec.NAME), RawPayloadCodec.NAME);
+
+        BinaryRecord record = new BinaryRecord();
+        record.setSchemaId(1);
+        record.setTimestamp(System.currentTimeMillis() * 1_000_000L);
+        record.addLong(42).addDouble(21.5).addDouble(48.25).addInt(7).addBoolean(true);
+        mqttMessage = new MqttMessage(BinaryRecordCodec.encode(record));
+        mqttMessage.setQos(1);
+    }
+
+    /**
+     * Conversion only: a {@code String} payload cannot carry a binary record, it is here for the cost of the UTF-8 decode.
+     */
+    @Benchmark
+    public Message<?> converterStringPayload() {
+        return stringConverter.toMessage(TOPIC, mqttMessage);
+    }
+
+    @Benchmark
+    public Message<?> converterBytesPayload() {
+        return bytesConverter.toMessage(TOPIC, mqttMessage);
+    }
+
+    @Benchmark
+    public long converterBytesPayloadDecode() {
+        Message<?> message = bytesConverter.toMessage(TOPIC, mqttMessage);
+        BinaryRecord record = (BinaryRecord) registry.decode(message);
+        long timestamp = record.getTimestamp();
+        registry.release(message, record);
+        return timestamp;
+    }
+
+    @Benchmark
+    public long rawBytesDecode() {
+        BinaryRecord record = codec.decode(ByteBuffer.wrap(mqttMessage.getPayload()));
+        long timestamp = record.getTimestamp();
+        codec.release(record);
+        return timestamp;
+    }
+}
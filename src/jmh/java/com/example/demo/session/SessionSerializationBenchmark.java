@@ -0,0 +1,85 @@
+package com.example.demo.session;
+
+import com.example.demo.cache.SmileRedisSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trip of the attributes of a session through a hash value serializer, one value per
+ * {@code sessionAttr:*} field as {@link NearCacheSessionRepository} stores them. The repository uses
+ * the JDK serializer; the others are candidates measured against it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SessionSerializationBenchmark {
+
+    @Param({"jdk", "smile", "json"})
+    public String serializer;
+
+    private RedisSerializer<Object> redisSerializer;
+    private Map<String, Object> attributes;
+    private Map<String, byte[]> serialized;
+
+    @Setup
+    public void setUp() {
+        redisSerializer = switch (serializer) {
+            case "jdk" -> new JdkSerializationRedisSerializer(getClass().getClassLoader());
+            case "smile" -> new SmileRedisSerializer();
+            case "json" -> new GenericJackson2JsonRedisSerializer();
+            default -> throw new IllegalArgumentException(serializer);
+        };
+
+        HashMap<String, Object> preferences = new HashMap<>();
+        preferences.put("locale", "ko_KR");
+        preferences.put("timezone", "Asia/Seoul");
+        preferences.put("pageSize", 50);
+        ArrayList<String> roles = new ArrayList<>(List.of("ROLE_USER", "ROLE_OPERATOR"));
+
+        attributes = new LinkedHashMap<>();
+        attributes.put(NearCacheSessionRepository.ATTRIBUTE_PREFIX + "userId", "user-1234");
+        attributes.put(NearCacheSessionRepository.ATTRIBUTE_PREFIX + "loginAt", System.currentTimeMillis());
+        attributes.put(NearCacheSessionRepository.ATTRIBUTE_PREFIX + "roles", roles);
+        attributes.put(NearCacheSessionRepository.ATTRIBUTE_PREFIX + "preferences", preferences);
+        attributes.put(NearCacheSessionRepository.ATTRIBUTE_PREFIX + "csrfToken", "4f1c2d9e-8a1b-4c55-9f0e-2b7d3a6c1e90");
+
+        serialized = new LinkedHashMap<>();
+        attributes.forEach((name, value) -> serialized.put(name, redisSerializer.serialize(value)));
+    }
+
+    @Benchmark
+    public long serialize() {
+        long bytes = 0;
+        for (Object value : attributes.values()) {
+            bytes += redisSerializer.serialize(value).length;
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public int deserialize() {
+        int count = 0;
+        for (byte[] value : serialized.values()) {
+            if (redisSerializer.deserialize(value) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.demo.accesslog;
+
+import com.example.demo.elastic.AccessLogIndexer;
+import com.example.demo.elastic.AccessLogProperties;
+import io.undertow.UndertowOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.undertow.UndertowServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.access-log.capture", name = "enabled", havingValue = "true")
+public class AccessLogCaptureConfig {
+    @Bean
+    public AccessLogRingBuffer accessLogRingBuffer(AccessLogCaptureProperties properties) {
+        return new AccessLogRingBuffer(properties.getBufferSize());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AccessLogSink accessLogSink(AccessLogCaptureProperties properties, AccessLogProperties accessLogProperties,
+                                       ObjectProvider<AccessLogIndexer> accessLogIndexer) throws IOException {
+        return switch (properties.getSink()) {
+            case NONE -> new NoOpAccessLogSink();
+            case FILE -> new FileAccessLogSink(properties.getFile(), accessLogProperties.getZone());
+            case ELASTIC -> new ElasticAccessLogSink(accessLogIndexer.getObject());
+        };
+    }
+
+    @Bean
+    public AccessLogDrainer accessLogDrainer(AccessLogRingBuffer accessLogRingBuffer, AccessLogSink accessLogSink,
+                                             AccessLogCaptureProperties properties) {
+        return new AccessLogDrainer(accessLogRingBuffer, accessLogSink, properties);
+    }
+
+    @Bean
+    public WebServerFactoryCustomizer<UndertowServletWebServerFactory> accessLogCaptureCustomizer(
+            AccessLogRingBuffer accessLogRingBuffer, AccessLogCaptureProperties properties) {
+        return factory -> {
+            factory.addBuilderCustomizers(builder -> builder.setServerOption(UndertowOptions.RECORD_REQUEST_START_TIME, true));
+            factory.addDeploymentInfoCustomizers(deploymentInfo -> deploymentInfo.addInitialHandlerChainWrapper(
+                    next -> new AccessLogCaptureHandler(next, accessLogRingBuffer, properties.getUidHeader())));
+        };
+    }
+}
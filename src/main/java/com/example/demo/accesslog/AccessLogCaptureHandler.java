@@ -0,0 +1,59 @@
+package com.example.demo.accesslog;
+
+import io.undertow.server.ExchangeCompletionListener;
+import io.undertow.server.HttpHandler;
+import io.undertow.server.HttpServerExchange;
+import io.undertow.util.Headers;
+import io.undertow.util.HttpString;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * First handler of the Undertow chain. It registers itself as completion listener and records the
+ * exchange into the ring buffer once the response is complete, so the entry carries the status and
+ * the duration. The duration relies on {@code UndertowOptions.RECORD_REQUEST_START_TIME}; without it
+ * the entry has none and {@code created} is the completion time.
+ */
+public class AccessLogCaptureHandler implements HttpHandler, ExchangeCompletionListener {
+
+    private final HttpHandler next;
+    private final AccessLogRingBuffer ringBuffer;
+    private final HttpString uidHeader;
+
+    public AccessLogCaptureHandler(HttpHandler next, AccessLogRingBuffer ringBuffer, String uidHeader) {
+        this.next = next;
+        this.ringBuffer = ringBuffer;
+        this.uidHeader = HttpString.tryFromString(uidHeader);
+    }
+
+    @Override
+    public void handleRequest(HttpServerExchange exchange) throws Exception {
+        exchange.addExchangeCompleteListener(this);
+        next.handleRequest(exchange);
+    }
+
+    @Override
+    public void exchangeEvent(HttpServerExchange exchange, NextListener nextListener) {
+        try {
+            AccessLogEntry entry = ringBuffer.claim();
+            if (entry != null) {
+                long now = System.currentTimeMillis();
+                long duration = exchange.getRequestStartTime() > 0
+                        ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - exchange.getRequestStartTime())
+                        : -1;
+                entry.capture(exchange.getSourceAddress(),
+                        exchange.getRequestMethod(),
+                        exchange.getProtocol(),
+                        exchange.getRequestHeaders().getFirst(Headers.USER_AGENT),
+                        exchange.getRequestHeaders().getFirst(uidHeader),
+                        exchange.getRequestURI(),
+                        duration < 0 ? now : now - duration,
+                        exchange.getStatusCode(),
+                        duration);
+                ringBuffer.publish(entry);
+            }
+        } finally {
+            nextListener.proceed();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.demo.accesslog;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties("spring.access-log.capture")
+@Component
+@Getter
+@Setter
+public class AccessLogCaptureProperties {
+    private boolean enabled;
+    /**
+     * Number of preallocated entries, rounded up to a power of two.
+     */
+    private int bufferSize = 16384;
+    private Sink sink = Sink.NONE;
+    /**
+     * Target of the {@link Sink#FILE} sink, written as newline delimited JSON.
+     */
+    private Path file = Path.of("access_log.ndjson");
+    /**
+     * Request header carrying the user id recorded as {@code uid}.
+     */
+    private String uidHeader = "X-User-Id";
+    /**
+     * How long the drain thread sleeps when the buffer is empty.
+     */
+    private Duration drainInterval = Duration.ofMillis(10);
+    private int drainBatchSize = 1024;
+
+    public enum Sink {
+        NONE,
+        FILE,
+        ELASTIC
+    }
+}
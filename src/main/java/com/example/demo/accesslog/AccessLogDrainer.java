@@ -0,0 +1,99 @@
+package com.example.demo.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Single thread moving captured entries from the ring buffer to the {@link AccessLogSink}.
+ */
+@Slf4j
+public class AccessLogDrainer implements SmartLifecycle {
+
+    private final AccessLogRingBuffer ringBuffer;
+    private final AccessLogSink sink;
+    private final AccessLogCaptureProperties properties;
+    private final Consumer<AccessLogEntry> writer;
+
+    private Thread thread;
+    private volatile boolean running;
+
+    public AccessLogDrainer(AccessLogRingBuffer ringBuffer, AccessLogSink sink, AccessLogCaptureProperties properties) {
+        this.ringBuffer = ringBuffer;
+        this.sink = sink;
+        this.properties = properties;
+        this.writer = entry -> {
+            try {
+                sink.write(entry);
+            } catch (Exception e) {
+                log.warn("Failed to write access log of {}", entry.getUri(), e);
+            }
+        };
+    }
+
+    private void drain() {
+        long idleNanos = properties.getDrainInterval().toNanos();
+        while (running) {
+            if (drainOnce() == 0) {
+                LockSupport.parkNanos(idleNanos);
+            }
+        }
+    }
+
+    private int drainOnce() {
+        int drained = ringBuffer.drain(writer, properties.getDrainBatchSize());
+        if (drained > 0) {
+            try {
+                sink.flush();
+            } catch (Exception e) {
+                log.warn("Failed to flush access log sink", e);
+            }
+        }
+        return drained;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new CustomizableThreadFactory("access-log-drain-").newThread(this::drain);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(properties.getDrainInterval().toMillis() * 10 + 1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (thread.isAlive()) {
+                log.warn("Access log drain thread did not stop, leaving the remaining entries");
+                return;
+            }
+        }
+        // [NOTE] The web server has stopped by now, so this drains the last requests it served.
+        while (drainOnce() > 0) {
+            // drain what is left on shutdown
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the web server has finished its graceful shutdown, so no request is captured afterwards.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2048;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demo.accesslog;
+
+import com.example.demo.elastic.AccessLog;
+import io.undertow.util.HttpString;
+
+import java.net.InetSocketAddress;
+import java.time.Instant;
+
+/**
+ * Preallocated slot of the {@link AccessLogRingBuffer}. Capturing only stores references that the
+ * exchange already holds. Strings such as {@code ip} and {@code created} are produced when read.
+ * An entry is reused once the sink returns, so sinks must copy what they keep.
+ */
+public final class AccessLogEntry {
+
+    private volatile long sequence = -1;
+    long claimed;
+
+    private InetSocketAddress source;
+    private HttpString method;
+    private HttpString protocol;
+    private String userAgent;
+    private String uid;
+    private String uri;
+    private long created;
+    private int status;
+    private long duration;
+
+    void capture(InetSocketAddress source, HttpString method, HttpString protocol,
+                 String userAgent, String uid, String uri, long created, int status, long duration) {
+        this.source = source;
+        this.method = method;
+        this.protocol = protocol;
+        this.userAgent = userAgent;
+        this.uid = uid;
+        this.uri = uri;
+        this.created = created;
+        this.status = status;
+        this.duration = duration;
+    }
+
+    void publish() {
+        sequence = claimed;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    public String getIp() {
+        return source == null || source.getAddress() == null ? null : source.getAddress().getHostAddress();
+    }
+
+    public String getMethod() {
+        return method == null ? null : method.toString();
+    }
+
+    public String getProtocol() {
+        return protocol == null ? null : protocol.toString();
+    }
+
+    public String getUserAgent() {
+        return userAgent;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Request start time in milliseconds since the epoch.
+     */
+    public long getCreated() {
+        return created;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Response time in milliseconds, negative when the request start time was not recorded.
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public AccessLog toAccessLog() {
+        return new AccessLog(getIp(), getMethod(), userAgent, getProtocol(), uid, uri, Instant.ofEpochMilli(created),
+                status, duration < 0 ? null : duration);
+    }
+}
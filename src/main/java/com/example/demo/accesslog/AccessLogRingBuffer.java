@@ -0,0 +1,92 @@
+package com.example.demo.accesslog;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Bounded multi-producer, single-consumer ring of preallocated {@link AccessLogEntry}s.
+ * Producers never block: when the ring is full the entry is dropped and counted.
+ */
+public class AccessLogRingBuffer implements MeterBinder {
+
+    private final AccessLogEntry[] entries;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private volatile long head;
+
+    public AccessLogRingBuffer(int size) {
+        int capacity = Integer.highestOneBit(Math.max(2, size - 1)) << 1;
+        this.entries = new AccessLogEntry[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = new AccessLogEntry();
+        }
+    }
+
+    /**
+     * Claims the next free entry, or returns {@code null} and counts a drop when the ring is full.
+     * A claimed entry must be {@link #publish(AccessLogEntry) published}.
+     */
+    public AccessLogEntry claim() {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - head >= entries.length) {
+                dropped.increment();
+                return null;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        AccessLogEntry entry = entries[(int) (sequence & mask)];
+        entry.claimed = sequence;
+        return entry;
+    }
+
+    public void publish(AccessLogEntry entry) {
+        entry.publish();
+    }
+
+    /**
+     * Hands up to {@code limit} published entries, in claim order, to the consumer. Must only be
+     * called from a single thread.
+     */
+    public int drain(Consumer<AccessLogEntry> consumer, int limit) {
+        long sequence = head;
+        int count = 0;
+        while (count < limit) {
+            AccessLogEntry entry = entries[(int) (sequence & mask)];
+            if (entry.getSequence() != sequence) {
+                break;
+            }
+            consumer.accept(entry);
+            sequence++;
+            count++;
+        }
+        head = sequence;
+        return count;
+    }
+
+    public int getCapacity() {
+        return entries.length;
+    }
+
+    public long getSize() {
+        return tail.get() - head;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("access.log.dropped", this, AccessLogRingBuffer::getDroppedCount)
+                .description("Access log entries dropped because the ring was full")
+                .register(registry);
+    }
+}
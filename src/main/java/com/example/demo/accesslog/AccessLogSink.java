@@ -0,0 +1,18 @@
+package com.example.demo.accesslog;
+
+/**
+ * Destination of captured access logs, called from the single drain thread.
+ */
+public interface AccessLogSink {
+
+    /**
+     * Consumes an entry. The entry is reused after this method returns.
+     */
+    void write(AccessLogEntry entry) throws Exception;
+
+    /**
+     * Called after each drained batch.
+     */
+    default void flush() throws Exception {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.demo.accesslog;
+
+import com.example.demo.elastic.AccessLogIndexer;
+
+public class ElasticAccessLogSink implements AccessLogSink {
+
+    private final AccessLogIndexer accessLogIndexer;
+
+    public ElasticAccessLogSink(AccessLogIndexer accessLogIndexer) {
+        this.accessLogIndexer = accessLogIndexer;
+    }
+
+    @Override
+    public void write(AccessLogEntry entry) {
+        accessLogIndexer.index(entry.toAccessLog());
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.accesslog;
+
+import com.example.demo.elastic.AccessLogIndexer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Appends entries as newline delimited JSON using the field names of {@code mappings/access_log.json}.
+ */
+public class FileAccessLogSink implements AccessLogSink, Closeable {
+
+    private final Writer writer;
+    private final JsonGenerator generator;
+    private final DateTimeFormatter createdFormat;
+
+    public FileAccessLogSink(Path file, ZoneId zone) throws IOException {
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        this.generator = new JsonFactory().createGenerator(writer);
+        this.createdFormat = AccessLogIndexer.CREATED_FORMAT.withZone(zone);
+    }
+
+    @Override
+    public void write(AccessLogEntry entry) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("ip", entry.getIp());
+        generator.writeStringField("method", entry.getMethod());
+        generator.writeStringField("user_agent", entry.getUserAgent());
+        generator.writeStringField("protocol", entry.getProtocol());
+        generator.writeStringField("uid", entry.getUid());
+        generator.writeStringField("uri", entry.getUri());
+        generator.writeStringField("created", createdFormat.format(Instant.ofEpochMilli(entry.getCreated())));
+        generator.writeNumberField("status", entry.getStatus());
+        if (entry.getDuration() >= 0) {
+            generator.writeNumberField("duration", entry.getDuration());
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        generator.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+        writer.close();
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.demo.accesslog;
+
+public class NoOpAccessLogSink implements AccessLogSink {
+    @Override
+    public void write(AccessLogEntry entry) {
+    }
+}
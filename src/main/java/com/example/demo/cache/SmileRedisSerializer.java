@@ -0,0 +1,90 @@
+package com.example.demo.cache;
+
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.jsontype.BasicPolymorphicTypeValidator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Serializes cache values as Smile, the binary encoding of JSON, with the type of non-final values recorded
+ * so they deserialize back to the same classes. Final types that do not map to a natural JSON type, such as
+ * {@link Long} and {@code java.time} values, are recorded as well.
+ * <p>
+ * Only application classes and the listed JDK types may be named in the data, so a tampered Redis entry
+ * cannot make Jackson instantiate arbitrary classes.
+ */
+public class SmileRedisSerializer implements RedisSerializer<Object> {
+
+    private static final Set<Class<?>> TYPED_FINAL_CLASSES = Set.of(Long.class, UUID.class, Instant.class, LocalDate.class,
+            LocalDateTime.class, OffsetDateTime.class, ZonedDateTime.class, Duration.class);
+
+    private final ObjectMapper objectMapper;
+
+    public SmileRedisSerializer() {
+        BasicPolymorphicTypeValidator.Builder validator = BasicPolymorphicTypeValidator.builder()
+                .allowIfSubType("com.example.demo.")
+                .allowIfSubType("java.time.")
+                .allowIfSubTypeIsArray();
+        for (Class<?> type : List.of(Long.class, UUID.class, ArrayList.class, LinkedList.class, HashMap.class,
+                LinkedHashMap.class, TreeMap.class, HashSet.class, LinkedHashSet.class, TreeSet.class)) {
+            validator.allowIfSubType(type);
+        }
+        ObjectMapper.DefaultTypeResolverBuilder typer = new ObjectMapper.DefaultTypeResolverBuilder(
+                ObjectMapper.DefaultTyping.NON_FINAL, validator.build()) {
+            @Override
+            public boolean useForType(JavaType type) {
+                return super.useForType(type) || TYPED_FINAL_CLASSES.contains(type.getRawClass());
+            }
+        };
+        this.objectMapper = new ObjectMapper(new SmileFactory())
+                .registerModule(new JavaTimeModule())
+                .setDefaultTyping(typer.init(JsonTypeInfo.Id.CLASS, null).inclusion(JsonTypeInfo.As.PROPERTY));
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write Smile: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(bytes, Object.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read Smile: " + e.getMessage(), e);
+        }
+    }
+}
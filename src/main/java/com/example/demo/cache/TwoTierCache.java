@@ -0,0 +1,217 @@
+package com.example.demo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Cache with an on-heap Caffeine tier in front of a Redis tier.
+ * <p>
+ * Lookups check the local tier first, then Redis, and populate the local tier on a Redis hit.
+ * {@link #get(Object, Callable)} runs inside the local tier's atomic compute, so concurrent callers on one
+ * node wait for a single load of the same key instead of stampeding Redis and the backend.
+ * Null values are stored in Redis as an empty value. Puts, evictions and clears are announced to the
+ * other nodes, which drop their local copy.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private static final byte[] NULL_VALUE = new byte[0];
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final RedisCacheWriter remote;
+    private final RedisSerializer<Object> serializer;
+    private final String keyPrefix;
+    private final Duration remoteTtl;
+    private final BiConsumer<String, String> invalidation;
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public TwoTierCache(String name, TwoTierCacheProperties.Spec spec, RedisCacheWriter remote,
+                        RedisSerializer<Object> serializer, String keyPrefix, boolean allowNullValues,
+                        BiConsumer<String, String> invalidation) {
+        super(allowNullValues);
+        this.name = name;
+        this.local = Caffeine.newBuilder()
+                .maximumSize(spec.getLocalMaximumSize())
+                .expireAfterWrite(spec.getLocalTtl())
+                .recordStats()
+                .build();
+        this.remote = remote;
+        this.serializer = serializer;
+        this.keyPrefix = keyPrefix + name + "::";
+        this.remoteTtl = spec.getRemoteTtl();
+        this.invalidation = invalidation;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return value;
+        }
+        value = remoteLookup(key);
+        if (value == null) {
+            misses.increment();
+            return null;
+        }
+        local.put(key, value);
+        return value;
+    }
+
+    private Object remoteLookup(Object key) {
+        byte[] bytes = remote.get(name, remoteKey(key));
+        if (bytes == null) {
+            return null;
+        }
+        remoteHits.increment();
+        return bytes.length == 0 ? NullValue.INSTANCE : serializer.deserialize(bytes);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return (T) fromStoreValue(value);
+        }
+        value = local.get(key, k -> {
+            Object stored = remoteLookup(k);
+            if (stored != null) {
+                return stored;
+            }
+            misses.increment();
+            long start = System.nanoTime();
+            try {
+                stored = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            } finally {
+                loads.increment();
+                loadNanos.add(System.nanoTime() - start);
+            }
+            remotePut(k, stored);
+            return stored;
+        });
+        return (T) fromStoreValue(value);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        remotePut(key, stored);
+        local.put(key, stored);
+        invalidation.accept(name, String.valueOf(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        byte[] existing = remote.putIfAbsent(name, remoteKey(key), serialize(stored), remoteTtl);
+        if (existing == null) {
+            puts.increment();
+            local.put(key, stored);
+            return null;
+        }
+        Object current = existing.length == 0 ? NullValue.INSTANCE : serializer.deserialize(existing);
+        local.put(key, current);
+        return toValueWrapper(current);
+    }
+
+    private void remotePut(Object key, Object stored) {
+        remote.put(name, remoteKey(key), serialize(stored), remoteTtl);
+        puts.increment();
+    }
+
+    private byte[] serialize(Object stored) {
+        return stored == NullValue.INSTANCE ? NULL_VALUE : serializer.serialize(stored);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.remove(name, remoteKey(key));
+        local.invalidate(key);
+        invalidation.accept(name, String.valueOf(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clean(name, (keyPrefix + "*").getBytes(StandardCharsets.UTF_8));
+        local.invalidateAll();
+        invalidation.accept(name, null);
+    }
+
+    /**
+     * Drops the local copy of a key changed on another node, matching keys by their string form as Redis does.
+     */
+    void evictLocal(String key) {
+        if (local.asMap().remove(key) == null) {
+            local.asMap().keySet().removeIf(k -> key.equals(String.valueOf(k)));
+        }
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    private byte[] remoteKey(Object key) {
+        return (keyPrefix + key).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public long getLocalSize() {
+        return local.estimatedSize();
+    }
+
+    public long getLocalHitCount() {
+        return localHits.sum();
+    }
+
+    public long getRemoteHitCount() {
+        return remoteHits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getPutCount() {
+        return puts.sum();
+    }
+
+    public long getEvictionCount() {
+        return local.stats().evictionCount();
+    }
+
+    public long getLoadCount() {
+        return loads.sum();
+    }
+
+    public double getLoadTimeNanos() {
+        return loadNanos.sum();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Creates a {@link TwoTierCache} for every configured cache name, and on demand for any other name
+ * using {@link TwoTierCacheProperties#getDefaults()}.
+ * <p>
+ * Puts, evictions and clears are announced on {@link TwoTierCacheProperties#getInvalidationChannel()}, so
+ * other nodes drop their local copy. As a {@link MessageListener} of that channel it applies the
+ * announcements of the other nodes.
+ */
+@Slf4j
+public class TwoTierCacheManager extends AbstractCacheManager implements MessageListener {
+
+    private final TwoTierCacheProperties properties;
+    private final RedisCacheWriter cacheWriter;
+    private final RedisSerializer<Object> serializer;
+    private final RedisOperations<String, String> redis;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TwoTierCacheManager(TwoTierCacheProperties properties, RedisCacheWriter cacheWriter,
+                               RedisSerializer<Object> serializer, RedisOperations<String, String> redis) {
+        this.properties = properties;
+        this.cacheWriter = cacheWriter;
+        this.serializer = serializer;
+        this.redis = redis;
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().entrySet().stream()
+                .map(entry -> createCache(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        return createCache(name, properties.getDefaults());
+    }
+
+    private TwoTierCache createCache(String name, TwoTierCacheProperties.Spec spec) {
+        return new TwoTierCache(name, spec, cacheWriter, serializer, properties.getKeyPrefix(),
+                properties.isAllowNullValues(), this::publishInvalidation);
+    }
+
+    /**
+     * @param key the changed key, or {@code null} when the whole cache was cleared
+     */
+    private void publishInvalidation(String name, String key) {
+        try {
+            String body = key == null ? nodeId + "|" + name : nodeId + "|" + name + "|" + key;
+            redis.convertAndSend(properties.getInvalidationChannel(), body);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish cache invalidation of {}: {}", name, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) {
+            return;
+        }
+        // [NOTE] A cache this node has not created yet holds nothing locally.
+        if (lookupCache(parts[1]) instanceof TwoTierCache cache) {
+            if (parts.length == 2) {
+                cache.clearLocal();
+            } else {
+                cache.evictLocal(parts[2]);
+            }
+        }
+    }
+}
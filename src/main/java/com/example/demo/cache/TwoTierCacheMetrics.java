@@ -0,0 +1,70 @@
+package com.example.demo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Binds the common {@code cache.*} meters of a {@link TwoTierCache}, with hits split by tier and load times.
+ */
+public class TwoTierCacheMetrics extends CacheMeterBinder<TwoTierCache> {
+
+    public TwoTierCacheMetrics(TwoTierCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        TwoTierCache cache = getCache();
+        return cache == null ? null : cache.getLocalSize();
+    }
+
+    @Override
+    protected long hitCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? 0 : cache.getLocalHitCount() + cache.getRemoteHitCount();
+    }
+
+    @Override
+    protected Long missCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? null : cache.getMissCount();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? null : cache.getEvictionCount();
+    }
+
+    @Override
+    protected long putCount() {
+        TwoTierCache cache = getCache();
+        return cache == null ? 0 : cache.getPutCount();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        TwoTierCache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+        FunctionCounter.builder("cache.tier.hits", cache, TwoTierCache::getLocalHitCount)
+                .tags(getTagsWithCacheName()).tag("tier", "local")
+                .description("The number of times cache lookup methods have returned a value from the given tier")
+                .register(registry);
+        FunctionCounter.builder("cache.tier.hits", cache, TwoTierCache::getRemoteHitCount)
+                .tags(getTagsWithCacheName()).tag("tier", "remote")
+                .description("The number of times cache lookup methods have returned a value from the given tier")
+                .register(registry);
+        FunctionTimer.builder("cache.load", cache, TwoTierCache::getLoadCount, TwoTierCache::getLoadTimeNanos,
+                        TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("The time spent loading values missing from both tiers")
+                .register(registry);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.cache;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties("spring.cache.two-tier")
+@Component
+@Getter
+@Setter
+public class TwoTierCacheProperties {
+    private boolean enabled;
+    private String keyPrefix = "cache:";
+    private boolean allowNullValues = true;
+    /**
+     * Pub/sub channel on which nodes announce keys they changed.
+     */
+    private String invalidationChannel = "cache:two-tier:invalidate";
+    /**
+     * Settings for caches not listed in {@link #caches}.
+     */
+    private Spec defaults = new Spec();
+    /**
+     * Settings per cache name.
+     */
+    private Map<String, Spec> caches = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Spec {
+        /**
+         * Maximum number of entries kept on heap.
+         */
+        private long localMaximumSize = 10000;
+        /**
+         * Time an entry stays on heap. Also bounds how long other nodes may serve a value that was
+         * updated or evicted elsewhere when they miss its invalidation message.
+         */
+        private Duration localTtl = Duration.ofMinutes(1);
+        private Duration remoteTtl = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.elastic;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Document of the {@code access_log-yyyyMM} index family, see {@code mappings/access_log.json}.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccessLog {
+    private String ip;
+    private String method;
+    private String userAgent;
+    private String protocol;
+    private String uid;
+    private String uri;
+    private Instant created;
+    private Integer status;
+    /**
+     * Response time in milliseconds.
+     */
+    private Long duration;
+
+    public AccessLog(String ip, String method, String userAgent, String protocol, String uid, String uri, Instant created) {
+        this(ip, method, userAgent, protocol, uid, uri, created, null, null);
+    }
+}
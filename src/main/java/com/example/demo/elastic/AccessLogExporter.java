@@ -0,0 +1,116 @@
+package com.example.demo.elastic;
+
+import com.example.demo.export.ExportProperties;
+import com.example.demo.export.ExportWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams access logs in {@code created} order by paging a point in time with {@code search_after}.
+ * The point in time is closed when the export ends, fails or the client goes away.
+ */
+@Slf4j
+@Component
+public class AccessLogExporter {
+
+    public static final List<String> COLUMNS = List.of("ip", "method", "user_agent", "protocol", "uid", "uri", "created", "status", "duration");
+
+    private final RestHighLevelClient restHighLevelClient;
+    private final ExportProperties properties;
+
+    public AccessLogExporter(RestHighLevelClient restHighLevelClient, ExportProperties properties) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.properties = properties;
+    }
+
+    /**
+     * @param from inclusive lower bound of {@code created}, or {@code null}
+     * @param to   exclusive upper bound of {@code created}, or {@code null}
+     * @return number of exported documents
+     */
+    public long export(String index, Instant from, Instant to, ExportWriter writer) throws IOException {
+        TimeValue keepAlive = TimeValue.timeValueMillis(properties.getPointInTimeKeepAlive().toMillis());
+        OpenPointInTimeRequest openRequest = new OpenPointInTimeRequest(index)
+                .keepAlive(keepAlive)
+                .indicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN);
+        String pointInTimeId = restHighLevelClient.openPointInTime(openRequest, RequestOptions.DEFAULT).getPointInTimeId();
+        long exported = 0;
+        try {
+            writer.header(COLUMNS);
+            RangeQueryBuilder range = QueryBuilders.rangeQuery("created").format("epoch_millis");
+            if (from != null) {
+                range.gte(from.toEpochMilli());
+            }
+            if (to != null) {
+                range.lt(to.toEpochMilli());
+            }
+            Object[] searchAfter = null;
+            while (true) {
+                SearchSourceBuilder source = new SearchSourceBuilder()
+                        .query(from == null && to == null ? QueryBuilders.matchAllQuery() : range)
+                        .size(properties.getPageSize())
+                        .fetchSource(COLUMNS.toArray(String[]::new), null)
+                        .sort(SortBuilders.fieldSort("created").order(SortOrder.ASC))
+                        .sort(SortBuilders.pitTiebreaker())
+                        .trackTotalHits(false)
+                        .pointInTimeBuilder(new PointInTimeBuilder(pointInTimeId).setKeepAlive(keepAlive));
+                if (searchAfter != null) {
+                    source.searchAfter(searchAfter);
+                }
+                SearchResponse response = restHighLevelClient.search(new SearchRequest().source(source), RequestOptions.DEFAULT);
+                if (response.pointInTimeId() != null) {
+                    pointInTimeId = response.pointInTimeId();
+                }
+                SearchHit[] hits = response.getHits().getHits();
+                if (hits.length == 0) {
+                    break;
+                }
+                Object[] values = new Object[COLUMNS.size()];
+                for (SearchHit hit : hits) {
+                    Map<String, Object> document = hit.getSourceAsMap();
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = document.get(COLUMNS.get(i));
+                    }
+                    writer.row(values);
+                }
+                writer.flush();
+                exported += hits.length;
+                if (hits.length < properties.getPageSize()) {
+                    break;
+                }
+                searchAfter = hits[hits.length - 1].getSortValues();
+            }
+        } finally {
+            closePointInTime(pointInTimeId);
+        }
+        return exported;
+    }
+
+    private void closePointInTime(String pointInTimeId) {
+        try {
+            restHighLevelClient.closePointInTime(new ClosePointInTimeRequest(pointInTimeId), RequestOptions.DEFAULT);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to close point in time, it expires after {}: {}", properties.getPointInTimeKeepAlive(), e.getMessage());
+        }
+    }
+}
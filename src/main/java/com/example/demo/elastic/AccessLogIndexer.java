@@ -0,0 +1,222 @@
+package com.example.demo.elastic;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers {@link AccessLog} documents into bulk requests routed to their {@code access_log-yyyyMM} index.
+ * Bulks are flushed by document count, size and time. Documents rejected by the cluster are retried
+ * with exponential backoff.
+ */
+@Slf4j
+@Component
+public class AccessLogIndexer implements DisposableBean, MeterBinder {
+
+    public static final DateTimeFormatter CREATED_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+    private static final DateTimeFormatter INDEX_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final AccessLogProperties properties;
+    private final DateTimeFormatter createdFormat;
+    private final Map<YearMonth, String> indexNames = new ConcurrentHashMap<>();
+    private final BulkProcessor bulkProcessor;
+    private final LongAdder indexed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<Long, Long> bulkStarts = new ConcurrentHashMap<>();
+    private volatile BulkMeters meters;
+
+    public AccessLogIndexer(RestHighLevelClient restHighLevelClient, AccessLogProperties properties) {
+        this.properties = properties;
+        this.createdFormat = CREATED_FORMAT.withZone(properties.getZone());
+
+        AccessLogProperties.Bulk bulk = properties.getBulk();
+        this.bulkProcessor = BulkProcessor.builder(
+                        (request, listener) -> restHighLevelClient.bulkAsync(request, RequestOptions.DEFAULT, listener),
+                        new Listener())
+                .setBulkActions(bulk.getActions())
+                .setBulkSize(new ByteSizeValue(bulk.getSize().toBytes()))
+                .setFlushInterval(TimeValue.timeValueMillis(bulk.getFlushInterval().toMillis()))
+                .setConcurrentRequests(bulk.getConcurrentRequests())
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(
+                        TimeValue.timeValueMillis(bulk.getBackoffDelay().toMillis()), bulk.getBackoffRetries()))
+                .build();
+    }
+
+    public void index(AccessLog accessLog) {
+        bulkProcessor.add(new IndexRequest(indexName(accessLog)).source(toSource(accessLog)));
+    }
+
+    /**
+     * Sends the buffered documents without waiting for the response.
+     */
+    public void flush() {
+        bulkProcessor.flush();
+    }
+
+    public String indexName(AccessLog accessLog) {
+        YearMonth month = YearMonth.from(accessLog.getCreated().atZone(properties.getZone()));
+        return indexNames.computeIfAbsent(month, this::monthlyIndexName);
+    }
+
+    public String monthlyIndexName(YearMonth month) {
+        return properties.getIndexPrefix() + INDEX_SUFFIX_FORMAT.format(month);
+    }
+
+    /**
+     * Routes documents of the month to the index, e.g. after a rollover.
+     */
+    public void setWriteIndex(YearMonth month, String index) {
+        indexNames.put(month, index);
+    }
+
+    public XContentBuilder toSource(AccessLog accessLog) {
+        try {
+            XContentBuilder builder = XContentFactory.jsonBuilder()
+                    .startObject()
+                    .field("ip", accessLog.getIp())
+                    .field("method", accessLog.getMethod())
+                    .field("user_agent", accessLog.getUserAgent())
+                    .field("protocol", accessLog.getProtocol())
+                    .field("uid", accessLog.getUid())
+                    .field("uri", accessLog.getUri())
+                    .field("created", createdFormat.format(accessLog.getCreated()));
+            if (accessLog.getStatus() != null) {
+                builder.field("status", accessLog.getStatus());
+            }
+            if (accessLog.getDuration() != null) {
+                builder.field("duration", accessLog.getDuration());
+            }
+            return builder.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long getIndexedCount() {
+        return indexed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        meters = new BulkMeters(registry);
+        FunctionCounter.builder("es.bulk.documents", this, AccessLogIndexer::getIndexedCount)
+                .tag("result", "indexed").register(registry);
+        FunctionCounter.builder("es.bulk.documents", this, AccessLogIndexer::getFailedCount)
+                .tag("result", "failed").register(registry);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        if (!bulkProcessor.awaitClose(properties.getBulk().getCloseTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            log.warn("Access log bulk requests still in flight after {}", properties.getBulk().getCloseTimeout());
+        }
+    }
+
+    private class Listener implements BulkProcessor.Listener {
+        @Override
+        public void beforeBulk(long executionId, BulkRequest request) {
+            BulkMeters meters = AccessLogIndexer.this.meters;
+            if (meters != null) {
+                bulkStarts.put(executionId, System.nanoTime());
+                meters.actions.record(request.numberOfActions());
+                meters.bytes.record(request.estimatedSizeInBytes());
+            }
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+            int failures = 0;
+            int rejections = 0;
+            if (response.hasFailures()) {
+                for (BulkItemResponse item : response.getItems()) {
+                    if (item.isFailed()) {
+                        failures++;
+                        if (item.status() == RestStatus.TOO_MANY_REQUESTS) {
+                            rejections++;
+                        }
+                    }
+                }
+                log.warn("Access log bulk [{}] had {} failed documents: {}", executionId, failures, response.buildFailureMessage());
+            }
+            indexed.add(request.numberOfActions() - failures);
+            failed.add(failures);
+            record(executionId, failures == 0 ? "success" : "partial", rejections);
+        }
+
+        @Override
+        public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+            failed.add(request.numberOfActions());
+            record(executionId, "error", 0);
+            log.error("Access log bulk [{}] of {} documents failed", executionId, request.numberOfActions(), failure);
+        }
+
+        private void record(long executionId, String outcome, int rejections) {
+            Long start = bulkStarts.remove(executionId);
+            BulkMeters meters = AccessLogIndexer.this.meters;
+            if (meters == null || start == null) {
+                return;
+            }
+            meters.duration.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meters.rejected.increment(rejections);
+        }
+    }
+
+    private static final class BulkMeters {
+        final Map<String, Timer> duration = new HashMap<>();
+        final DistributionSummary actions;
+        final DistributionSummary bytes;
+        final Counter rejected;
+
+        BulkMeters(MeterRegistry registry) {
+            for (String outcome : new String[]{"success", "partial", "error"}) {
+                duration.put(outcome, Timer.builder("es.bulk")
+                        .description("Round trip of a bulk request, including backoff retries")
+                        .tag("outcome", outcome)
+                        .register(registry));
+            }
+            this.actions = DistributionSummary.builder("es.bulk.actions")
+                    .description("Documents per bulk request")
+                    .register(registry);
+            this.bytes = DistributionSummary.builder("es.bulk.size")
+                    .description("Estimated size of a bulk request")
+                    .baseUnit("bytes")
+                    .register(registry);
+            this.rejected = Counter.builder("es.bulk.rejected")
+                    .description("Documents rejected with 429 after the backoff retries were exhausted")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo.elastic;
+
+import com.example.demo.startup.WarmupTask;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.TimeZone;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.elasticsearch.access-log.lifecycle", name = "enabled", havingValue = "true")
+public class AccessLogLifecycleConfig {
+    @Bean
+    public AccessLogLifecycleManager accessLogLifecycleManager(RestHighLevelClient restHighLevelClient, AccessLogIndexer accessLogIndexer,
+                                                               AccessLogProperties accessLogProperties, ObjectMapper objectMapper) {
+        return new AccessLogLifecycleManager(restHighLevelClient, accessLogIndexer, accessLogProperties, objectMapper);
+    }
+
+    @Bean
+    public WarmupTask accessLogTemplateWarmup(AccessLogLifecycleManager accessLogLifecycleManager) {
+        return accessLogLifecycleManager::ensureTemplate;
+    }
+
+    @Bean
+    public JobDetail accessLogLifecycleJobDetail() {
+        return JobBuilder.newJob(AccessLogLifecycleJob.class)
+                .withIdentity("accessLogLifecycleJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger accessLogLifecycleTrigger(JobDetail accessLogLifecycleJobDetail, AccessLogProperties accessLogProperties) {
+        return TriggerBuilder.newTrigger()
+                .forJob(accessLogLifecycleJobDetail)
+                .withIdentity("accessLogLifecycleTrigger")
+                .withSchedule(CronScheduleBuilder.cronSchedule(accessLogProperties.getLifecycle().getCron())
+                        .inTimeZone(TimeZone.getTimeZone(accessLogProperties.getZone())))
+                .build();
+    }
+
+    @Bean
+    public Trigger accessLogLifecycleStartupTrigger(JobDetail accessLogLifecycleJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(accessLogLifecycleJobDetail)
+                .withIdentity("accessLogLifecycleStartupTrigger")
+                .startNow()
+                .build();
+    }
+}
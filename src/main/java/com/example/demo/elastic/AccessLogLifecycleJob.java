@@ -0,0 +1,18 @@
+package com.example.demo.elastic;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+@DisallowConcurrentExecution
+public class AccessLogLifecycleJob extends QuartzJobBean {
+
+    @Autowired
+    private AccessLogLifecycleManager accessLogLifecycleManager;
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        accessLogLifecycleManager.maintain();
+    }
+}
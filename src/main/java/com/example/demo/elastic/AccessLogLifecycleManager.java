@@ -0,0 +1,207 @@
+package com.example.demo.elastic;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.admin.indices.forcemerge.ForceMergeRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.Request;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.ComposableIndexTemplateExistRequest;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.PutComposableIndexTemplateRequest;
+import org.elasticsearch.cluster.metadata.ComposableIndexTemplate;
+import org.elasticsearch.cluster.metadata.Template;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maintains the monthly access log indices:
+ * <ul>
+ *     <li>puts the index template when it is missing,</li>
+ *     <li>creates the indices of the upcoming months ahead of their first write,</li>
+ *     <li>rolls the current month over to {@code access_log-yyyyMM-N} once its write index outgrows the
+ *     rollover size and points the {@link AccessLogIndexer} at it,</li>
+ *     <li>blocks writes to indices of months that ended more than {@code close-delay} ago, lowers their
+ *     replicas and force merges them.</li>
+ * </ul>
+ * Every step is idempotent, so the job may run on several nodes.
+ */
+@Slf4j
+public class AccessLogLifecycleManager {
+
+    public static final String TEMPLATE_NAME = "access_log-template";
+    private static final String MAPPINGS = "mappings/access_log.json";
+    private static final String WRITE_BLOCK = "index.blocks.write";
+
+    private final RestHighLevelClient restHighLevelClient;
+    private final AccessLogIndexer accessLogIndexer;
+    private final AccessLogProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Pattern indexPattern;
+
+    public AccessLogLifecycleManager(RestHighLevelClient restHighLevelClient, AccessLogIndexer accessLogIndexer,
+                                     AccessLogProperties properties, ObjectMapper objectMapper) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.accessLogIndexer = accessLogIndexer;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.indexPattern = Pattern.compile(Pattern.quote(properties.getIndexPrefix()) + "(\\d{4})(\\d{2})(?:-(\\d+))?");
+    }
+
+    public void maintain() {
+        try {
+            ensureTemplate();
+            YearMonth current = YearMonth.now(properties.getZone());
+            for (int i = 0; i <= properties.getLifecycle().getPremake(); i++) {
+                createIndex(accessLogIndexer.monthlyIndexName(current.plusMonths(i)));
+            }
+            List<IndexInfo> indices = listIndices();
+            rollover(current, indices);
+            Instant now = Instant.now();
+            indices.stream().filter(index -> isClosed(index.month(), now)).forEach(this::closeIndex);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void ensureTemplate() throws IOException {
+        if (restHighLevelClient.indices().existsIndexTemplate(new ComposableIndexTemplateExistRequest(TEMPLATE_NAME), RequestOptions.DEFAULT)) {
+            return;
+        }
+        String mappings;
+        try (InputStream inputStream = new ClassPathResource(MAPPINGS).getInputStream()) {
+            mappings = StreamUtils.copyToString(inputStream, StandardCharsets.UTF_8);
+        }
+        Settings settings = Settings.builder()
+                .put("index.number_of_shards", properties.getLifecycle().getShards())
+                .put("index.number_of_replicas", properties.getLifecycle().getReplicas())
+                .build();
+        ComposableIndexTemplate template = new ComposableIndexTemplate(List.of(properties.getIndexPrefix() + "*"),
+                new Template(settings, new CompressedXContent(mappings), null), null, null, null, null);
+        restHighLevelClient.indices().putIndexTemplate(
+                new PutComposableIndexTemplateRequest().name(TEMPLATE_NAME).indexTemplate(template), RequestOptions.DEFAULT);
+        log.info("Put index template {}", TEMPLATE_NAME);
+    }
+
+    /**
+     * @return whether the index was created by this call
+     */
+    public boolean createIndex(String index) throws IOException {
+        try {
+            restHighLevelClient.indices().create(new CreateIndexRequest(index), RequestOptions.DEFAULT);
+            log.info("Created access log index {}", index);
+            return true;
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() == RestStatus.BAD_REQUEST && e.getDetailedMessage().contains("resource_already_exists_exception")) {
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    private void rollover(YearMonth current, List<IndexInfo> indices) throws IOException {
+        Optional<IndexInfo> writeIndex = indices.stream()
+                .filter(index -> index.month().equals(current))
+                .max(Comparator.comparingInt(IndexInfo::generation));
+        if (writeIndex.isEmpty()) {
+            return;
+        }
+        IndexInfo index = writeIndex.get();
+        String target = index.name();
+        if (index.primarySize() >= properties.getLifecycle().getRolloverSize().toBytes()) {
+            target = accessLogIndexer.monthlyIndexName(current) + "-" + (index.generation() + 1);
+            createIndex(target);
+            log.info("Rolled access logs of {} over from {} ({} bytes) to {}", current, index.name(), index.primarySize(), target);
+        }
+        accessLogIndexer.setWriteIndex(current, target);
+    }
+
+    private boolean isClosed(YearMonth month, Instant now) {
+        Instant end = month.plusMonths(1).atDay(1).atStartOfDay(properties.getZone()).toInstant();
+        return end.plus(properties.getLifecycle().getCloseDelay()).isBefore(now);
+    }
+
+    private void closeIndex(IndexInfo index) {
+        try {
+            String blocked = restHighLevelClient.indices()
+                    .getSettings(new GetSettingsRequest().indices(index.name()).names(WRITE_BLOCK), RequestOptions.DEFAULT)
+                    .getSetting(index.name(), WRITE_BLOCK);
+            if (Boolean.parseBoolean(blocked)) {
+                return;
+            }
+            Settings.Builder settings = Settings.builder().put(WRITE_BLOCK, true);
+            if (properties.getLifecycle().getClosedReplicas() != null) {
+                settings.put("index.number_of_replicas", properties.getLifecycle().getClosedReplicas());
+            }
+            restHighLevelClient.indices().putSettings(new UpdateSettingsRequest(index.name()).settings(settings), RequestOptions.DEFAULT);
+            try {
+                restHighLevelClient.indices().forcemerge(
+                        new ForceMergeRequest(index.name()).maxNumSegments(properties.getLifecycle().getMaxNumSegments()),
+                        RequestOptions.DEFAULT);
+                log.info("Closed access log index {}", index.name());
+            } catch (SocketTimeoutException e) {
+                log.info("Closed access log index {}, force merge continues on the cluster", index.name());
+            }
+        } catch (IOException | ElasticsearchStatusException e) {
+            log.warn("Failed to close access log index {}: {}", index.name(), e.getMessage());
+        }
+    }
+
+    /**
+     * Lists the open access log indices with their primary store size from {@code _cat/indices}.
+     */
+    public List<IndexInfo> listIndices() throws IOException {
+        Request request = new Request("GET", "/_cat/indices/" + properties.getIndexPrefix() + "*");
+        request.addParameter("format", "json");
+        request.addParameter("h", "index,pri.store.size");
+        request.addParameter("bytes", "b");
+        request.addParameter("expand_wildcards", "open");
+        Response response = restHighLevelClient.getLowLevelClient().performRequest(request);
+        List<Map<String, String>> rows;
+        try (InputStream inputStream = response.getEntity().getContent()) {
+            rows = objectMapper.readValue(inputStream, new TypeReference<>() {
+            });
+        }
+        return rows.stream()
+                .map(row -> toIndexInfo(row.get("index"), row.get("pri.store.size")))
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private IndexInfo toIndexInfo(String index, String primarySize) {
+        Matcher matcher = indexPattern.matcher(index);
+        if (!matcher.matches()) {
+            return null;
+        }
+        YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+        int generation = matcher.group(3) == null ? 0 : Integer.parseInt(matcher.group(3));
+        long size = primarySize == null ? 0 : Long.parseLong(primarySize);
+        return new IndexInfo(index, month, generation, size);
+    }
+
+    public record IndexInfo(String name, YearMonth month, int generation, long primarySize) {
+    }
+}
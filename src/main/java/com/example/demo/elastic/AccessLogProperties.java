@@ -0,0 +1,116 @@
+package com.example.demo.elastic;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+@ConfigurationProperties("spring.elasticsearch.access-log")
+@Component
+@Getter
+@Setter
+public class AccessLogProperties {
+    private String indexPrefix = "access_log-";
+    /**
+     * Zone used to format {@code created} and to pick the monthly index.
+     */
+    private ZoneId zone = ZoneOffset.UTC;
+    private Bulk bulk = new Bulk();
+    private Lifecycle lifecycle = new Lifecycle();
+    private Rollup rollup = new Rollup();
+
+    @Getter
+    @Setter
+    public static class Bulk {
+        /**
+         * Flush once this many documents are buffered.
+         */
+        private int actions = 1000;
+        /**
+         * Flush once the buffered documents reach this size.
+         */
+        private DataSize size = DataSize.ofMegabytes(5);
+        /**
+         * Flush buffered documents at least this often.
+         */
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /**
+         * Number of bulk requests allowed in flight while new documents are buffered.
+         */
+        private int concurrentRequests = 2;
+        /**
+         * Initial delay of the exponential backoff applied to rejected documents.
+         */
+        private Duration backoffDelay = Duration.ofMillis(100);
+        private int backoffRetries = 5;
+        private Duration closeTimeout = Duration.ofSeconds(30);
+    }
+
+    @Getter
+    @Setter
+    public static class Lifecycle {
+        private boolean enabled;
+        private String cron = "0 10 * * * ?";
+        /**
+         * Number of upcoming months whose index is created ahead of time.
+         */
+        private int premake = 1;
+        /**
+         * Primary store size after which the current month rolls over to {@code access_log-yyyyMM-N}.
+         */
+        private DataSize rolloverSize = DataSize.ofGigabytes(50);
+        private int shards = 3;
+        private int replicas = 1;
+        /**
+         * Time after the end of a month before its indices are closed, leaving room for late writes.
+         */
+        private Duration closeDelay = Duration.ofDays(1);
+        /**
+         * Replicas of closed months. Left unchanged when not set.
+         */
+        private Integer closedReplicas;
+        /**
+         * Segments per shard after the force merge of a closed month.
+         */
+        private int maxNumSegments = 1;
+    }
+
+    @Getter
+    @Setter
+    public static class Rollup {
+        private boolean enabled;
+        private String cron = "0 * * * * ?";
+        private String index = "access_log_rollup";
+        /**
+         * Index keeping one checkpoint per interval, the watermark and the after-key of an unfinished pass.
+         */
+        private String checkpointIndex = "access_log_rollup_checkpoint";
+        /**
+         * Bucket sizes rolled up, each a whole number of seconds. Coarser intervals should be multiples of finer ones.
+         */
+        private List<Duration> intervals = List.of(Duration.ofMinutes(1), Duration.ofHours(1));
+        /**
+         * Time a bucket stays open after its end for documents still in the bulk pipeline. Documents indexed
+         * after their bucket was rolled up are only counted by queries falling back to raw data.
+         */
+        private Duration delay = Duration.ofMinutes(2);
+        /**
+         * How far back the first pass of an interval starts when there is no checkpoint yet.
+         */
+        private Duration backfill = Duration.ofDays(7);
+        /**
+         * Composite buckets per page. The checkpoint is saved after every page.
+         */
+        private int pageSize = 1000;
+        /**
+         * Upper bounds in milliseconds of the latency buckets. Durations above the last bound fall into an open bucket.
+         */
+        private List<Long> latencyBounds = List.of(10L, 50L, 100L, 250L, 500L, 1000L, 2500L, 5000L);
+    }
+}
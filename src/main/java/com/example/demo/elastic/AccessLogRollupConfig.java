@@ -0,0 +1,52 @@
+package com.example.demo.elastic;
+
+import com.example.demo.startup.WarmupTask;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.TimeZone;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.elasticsearch.access-log.rollup", name = "enabled", havingValue = "true")
+public class AccessLogRollupConfig {
+    @Bean
+    public AccessLogRollupManager accessLogRollupManager(RestHighLevelClient restHighLevelClient, AccessLogProperties accessLogProperties) {
+        return new AccessLogRollupManager(restHighLevelClient, accessLogProperties);
+    }
+
+    @Bean
+    public AccessLogRollupQuery accessLogRollupQuery(RestHighLevelClient restHighLevelClient, AccessLogRollupManager accessLogRollupManager,
+                                                     AccessLogProperties accessLogProperties) {
+        return new AccessLogRollupQuery(restHighLevelClient, accessLogRollupManager, accessLogProperties);
+    }
+
+    @Bean
+    public WarmupTask accessLogRollupIndexWarmup(AccessLogRollupManager accessLogRollupManager) {
+        return accessLogRollupManager::ensureIndices;
+    }
+
+    @Bean
+    public JobDetail accessLogRollupJobDetail() {
+        return JobBuilder.newJob(AccessLogRollupJob.class)
+                .withIdentity("accessLogRollupJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger accessLogRollupTrigger(JobDetail accessLogRollupJobDetail, AccessLogProperties accessLogProperties) {
+        return TriggerBuilder.newTrigger()
+                .forJob(accessLogRollupJobDetail)
+                .withIdentity("accessLogRollupTrigger")
+                .withSchedule(CronScheduleBuilder.cronSchedule(accessLogProperties.getRollup().getCron())
+                        .inTimeZone(TimeZone.getTimeZone(accessLogProperties.getZone())))
+                .build();
+    }
+}
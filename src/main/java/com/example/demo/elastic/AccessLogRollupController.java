@@ -0,0 +1,41 @@
+package com.example.demo.elastic;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.time.Instant;
+
+@RestController
+@RequestMapping("/access-logs")
+@ConditionalOnProperty(prefix = "spring.elasticsearch.access-log.rollup", name = "enabled", havingValue = "true")
+public class AccessLogRollupController {
+
+    private final AccessLogRollupQuery accessLogRollupQuery;
+
+    public AccessLogRollupController(AccessLogRollupQuery accessLogRollupQuery) {
+        this.accessLogRollupQuery = accessLogRollupQuery;
+    }
+
+    /**
+     * Totals by uri and method over {@code [from, to)}, {@code to} defaults to now.
+     */
+    @GetMapping("/traffic")
+    public AccessLogRollupQuery.Traffic traffic(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) String uri,
+            @RequestParam(required = false) String method) throws IOException {
+        Instant end = to == null ? Instant.now() : to;
+        if (!from.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'");
+        }
+        return accessLogRollupQuery.traffic(from, end, uri, method);
+    }
+}
@@ -0,0 +1,416 @@
+package com.example.demo.elastic;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.indices.CreateIndexRequest;
+import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.DateHistogramValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.range.Range;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.aggregations.metrics.ValueCount;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.xcontent.XContentBuilder;
+import org.elasticsearch.xcontent.XContentFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rolls raw access logs up into per-interval buckets of {@code uri} and {@code method}, holding the count,
+ * the duration sum and maximum and a histogram of latency buckets.
+ * <p>
+ * Each interval is rolled up incrementally by a composite aggregation over {@code [watermark, target)},
+ * where {@code target} is the last bucket boundary older than {@code delay}. The after-key is checkpointed
+ * after every page, so an interrupted pass resumes where it stopped, and the watermark moves to the
+ * target once the pass completes. Rollup documents have deterministic ids, which makes a repeated page
+ * overwrite the same documents.
+ */
+@Slf4j
+public class AccessLogRollupManager implements MeterBinder {
+
+    static final String BUCKETS = "buckets";
+    static final String DURATION_COUNT = "duration_count";
+    static final String DURATION_SUM = "duration_sum";
+    static final String DURATION_MAX = "duration_max";
+    static final String LATENCY = "latency";
+
+    private final RestHighLevelClient restHighLevelClient;
+    private final AccessLogProperties properties;
+    private final List<Duration> intervals;
+    private final List<String> latencyKeys;
+    private final Map<String, Instant> watermarks = new ConcurrentHashMap<>();
+    private final LongAdder written = new LongAdder();
+
+    public AccessLogRollupManager(RestHighLevelClient restHighLevelClient, AccessLogProperties properties) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.properties = properties;
+        properties.getRollup().getIntervals().forEach(AccessLogRollupManager::intervalName);
+        this.intervals = properties.getRollup().getIntervals().stream()
+                .sorted(Comparator.reverseOrder())
+                .toList();
+        List<Long> bounds = properties.getRollup().getLatencyBounds();
+        List<String> keys = new ArrayList<>();
+        bounds.forEach(bound -> keys.add("lt_" + bound));
+        if (!bounds.isEmpty()) {
+            keys.add("gte_" + bounds.get(bounds.size() - 1));
+        }
+        this.latencyKeys = List.copyOf(keys);
+    }
+
+    /**
+     * @return the rolled up intervals, coarsest first
+     */
+    public List<Duration> getIntervals() {
+        return intervals;
+    }
+
+    /**
+     * @return keys of the latency buckets in ascending order, e.g. {@code lt_10} and {@code gte_5000}
+     */
+    public List<String> getLatencyKeys() {
+        return latencyKeys;
+    }
+
+    public void ensureIndices() throws IOException {
+        XContentBuilder rollupMapping = XContentFactory.jsonBuilder()
+                .startObject()
+                .startObject("properties")
+                .startObject("interval").field("type", "keyword").endObject()
+                .startObject("timestamp").field("type", "date").field("format", "epoch_millis").endObject()
+                .startObject("uri").field("type", "keyword").endObject()
+                .startObject("method").field("type", "keyword").endObject()
+                .startObject("count").field("type", "long").endObject()
+                .startObject(DURATION_COUNT).field("type", "long").endObject()
+                .startObject(DURATION_SUM).field("type", "long").endObject()
+                .startObject(DURATION_MAX).field("type", "long").endObject()
+                .startObject(LATENCY).startObject("properties");
+        for (String key : latencyKeys) {
+            rollupMapping.startObject(key).field("type", "long").endObject();
+        }
+        rollupMapping.endObject().endObject().endObject().endObject();
+        createIndex(properties.getRollup().getIndex(), rollupMapping);
+
+        XContentBuilder checkpointMapping = XContentFactory.jsonBuilder()
+                .startObject()
+                .field("dynamic", false)
+                .endObject();
+        createIndex(properties.getRollup().getCheckpointIndex(), checkpointMapping);
+    }
+
+    private void createIndex(String index, XContentBuilder mapping) throws IOException {
+        if (restHighLevelClient.indices().exists(new GetIndexRequest(index), RequestOptions.DEFAULT)) {
+            return;
+        }
+        try {
+            restHighLevelClient.indices().create(new CreateIndexRequest(index)
+                    .settings(Settings.builder().put("index.number_of_shards", 1))
+                    .mapping(mapping), RequestOptions.DEFAULT);
+            log.info("Created access log rollup index {}", index);
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() == RestStatus.BAD_REQUEST && e.getDetailedMessage().contains("resource_already_exists_exception")) {
+                return;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Rolls every interval up to its current target.
+     *
+     * @return number of rollup documents written
+     */
+    public long rollup() {
+        try {
+            ensureIndices();
+            long total = 0;
+            for (Duration interval : intervals) {
+                total += rollup(interval);
+            }
+            return total;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long rollup(Duration interval) throws IOException {
+        AccessLogProperties.Rollup rollup = properties.getRollup();
+        String name = intervalName(interval);
+        long step = interval.toMillis();
+        long now = System.currentTimeMillis();
+        Checkpoint checkpoint = checkpoint(interval);
+        if (checkpoint == null) {
+            Instant origin = Instant.ofEpochMilli(floor(now - rollup.getBackfill().toMillis(), step));
+            checkpoint = new Checkpoint(name, origin, origin, null, null);
+        }
+        if (checkpoint.afterKey() == null) {
+            Instant target = Instant.ofEpochMilli(floor(now - rollup.getDelay().toMillis(), step));
+            if (!target.isAfter(checkpoint.watermark())) {
+                return 0;
+            }
+            checkpoint = new Checkpoint(name, checkpoint.origin(), checkpoint.watermark(), target, null);
+        }
+
+        long start = System.nanoTime();
+        long count = 0;
+        Map<String, Object> afterKey = checkpoint.afterKey();
+        do {
+            CompositeAggregationBuilder composite = compositeAggregation(List.of(
+                    new DateHistogramValuesSourceBuilder("timestamp").field("created").fixedInterval(new DateHistogramInterval(name)),
+                    new TermsValuesSourceBuilder("uri").field("uri").missingBucket(true),
+                    new TermsValuesSourceBuilder("method").field("method").missingBucket(true)));
+            if (afterKey != null) {
+                composite.aggregateAfter(afterKey);
+            }
+            SearchSourceBuilder source = new SearchSourceBuilder()
+                    .query(QueryBuilders.rangeQuery("created").format("epoch_millis")
+                            .gte(checkpoint.watermark().toEpochMilli())
+                            .lt(checkpoint.target().toEpochMilli()))
+                    .size(0)
+                    .aggregation(composite);
+            SearchResponse response = restHighLevelClient.search(new SearchRequest(properties.getIndexPrefix() + "*")
+                    .indicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN)
+                    .source(source), RequestOptions.DEFAULT);
+            CompositeAggregation buckets = response.getAggregations().get(BUCKETS);
+            if (!buckets.getBuckets().isEmpty()) {
+                BulkRequest bulk = new BulkRequest();
+                for (CompositeAggregation.Bucket bucket : buckets.getBuckets()) {
+                    bulk.add(toRollupRequest(name, bucket));
+                }
+                BulkResponse bulkResponse = restHighLevelClient.bulk(bulk, RequestOptions.DEFAULT);
+                if (bulkResponse.hasFailures()) {
+                    throw new IllegalStateException("Access log rollup of %s failed, the page is retried on the next run: %s"
+                            .formatted(name, bulkResponse.buildFailureMessage()));
+                }
+                count += bulk.numberOfActions();
+                written.add(bulk.numberOfActions());
+            }
+            afterKey = buckets.getBuckets().size() < rollup.getPageSize() ? null : buckets.afterKey();
+            checkpoint = afterKey == null
+                    ? new Checkpoint(name, checkpoint.origin(), checkpoint.target(), null, null)
+                    : new Checkpoint(name, checkpoint.origin(), checkpoint.watermark(), checkpoint.target(), afterKey);
+            saveCheckpoint(checkpoint);
+        } while (afterKey != null);
+
+        watermarks.put(name, checkpoint.watermark());
+        log.info("Rolled access logs up to {} per {} into {} documents in {} ms", checkpoint.watermark(), name, count,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+        return count;
+    }
+
+    CompositeAggregationBuilder compositeAggregation(List<CompositeValuesSourceBuilder<?>> sources) {
+        RangeAggregationBuilder latency = AggregationBuilders.range(LATENCY).field("duration");
+        List<Long> bounds = properties.getRollup().getLatencyBounds();
+        for (int i = 0; i < bounds.size(); i++) {
+            if (i == 0) {
+                latency.addUnboundedTo(latencyKeys.get(i), bounds.get(i));
+            } else {
+                latency.addRange(latencyKeys.get(i), bounds.get(i - 1), bounds.get(i));
+            }
+        }
+        if (!bounds.isEmpty()) {
+            latency.addUnboundedFrom(latencyKeys.get(bounds.size()), bounds.get(bounds.size() - 1));
+        }
+        return AggregationBuilders.composite(BUCKETS, sources)
+                .size(properties.getRollup().getPageSize())
+                .subAggregation(AggregationBuilders.count(DURATION_COUNT).field("duration"))
+                .subAggregation(AggregationBuilders.sum(DURATION_SUM).field("duration"))
+                .subAggregation(AggregationBuilders.max(DURATION_MAX).field("duration"))
+                .subAggregation(latency);
+    }
+
+    /**
+     * Reads the totals of a bucket of the raw aggregation built by {@link #compositeAggregation(List)}.
+     */
+    Totals toTotals(CompositeAggregation.Bucket bucket) {
+        Aggregations aggregations = bucket.getAggregations();
+        Totals totals = new Totals(latencyKeys);
+        totals.count = bucket.getDocCount();
+        totals.durationCount = ((ValueCount) aggregations.get(DURATION_COUNT)).getValue();
+        totals.durationSum = (long) ((Sum) aggregations.get(DURATION_SUM)).value();
+        double max = ((Max) aggregations.get(DURATION_MAX)).value();
+        totals.durationMax = Double.isInfinite(max) ? null : (long) max;
+        for (Range.Bucket range : ((Range) aggregations.get(LATENCY)).getBuckets()) {
+            totals.latency.put(range.getKeyAsString(), range.getDocCount());
+        }
+        return totals;
+    }
+
+    private IndexRequest toRollupRequest(String name, CompositeAggregation.Bucket bucket) throws IOException {
+        Map<String, Object> key = bucket.getKey();
+        long timestamp = ((Number) key.get("timestamp")).longValue();
+        String uri = (String) key.get("uri");
+        String method = (String) key.get("method");
+        Totals totals = toTotals(bucket);
+        XContentBuilder document = XContentFactory.jsonBuilder()
+                .startObject()
+                .field("interval", name)
+                .field("timestamp", timestamp)
+                .field("uri", uri)
+                .field("method", method)
+                .field("count", totals.count)
+                .field(DURATION_COUNT, totals.durationCount)
+                .field(DURATION_SUM, totals.durationSum)
+                .field(DURATION_MAX, totals.durationMax)
+                .field(LATENCY).map(totals.latency)
+                .endObject();
+        // [NOTE] A missing uri or method is keyed as NUL, so it cannot collide with a literal "null".
+        String id = UUID.nameUUIDFromBytes((name + "|" + timestamp + "|" + Objects.requireNonNullElse(method, "\u0000") + "|"
+                + Objects.requireNonNullElse(uri, "\u0000")).getBytes(StandardCharsets.UTF_8)).toString();
+        return new IndexRequest(properties.getRollup().getIndex()).id(id).source(document);
+    }
+
+    /**
+     * @return the checkpoint of the interval, or {@code null} before its first pass
+     */
+    public Checkpoint checkpoint(Duration interval) throws IOException {
+        String name = intervalName(interval);
+        GetResponse response;
+        try {
+            response = restHighLevelClient.get(new GetRequest(properties.getRollup().getCheckpointIndex(), name), RequestOptions.DEFAULT);
+        } catch (ElasticsearchStatusException e) {
+            if (e.status() == RestStatus.NOT_FOUND) {
+                return null;
+            }
+            throw e;
+        }
+        if (!response.isExists()) {
+            return null;
+        }
+        Map<String, Object> source = response.getSourceAsMap();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> afterKey = (Map<String, Object>) source.get("after_key");
+        Checkpoint checkpoint = new Checkpoint(name, toInstant(source.get("origin")), toInstant(source.get("watermark")),
+                toInstant(source.get("target")), afterKey);
+        watermarks.put(name, checkpoint.watermark());
+        return checkpoint;
+    }
+
+    private void saveCheckpoint(Checkpoint checkpoint) throws IOException {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("interval", checkpoint.interval());
+        source.put("origin", checkpoint.origin().toEpochMilli());
+        source.put("watermark", checkpoint.watermark().toEpochMilli());
+        source.put("target", checkpoint.target() == null ? null : checkpoint.target().toEpochMilli());
+        source.put("after_key", checkpoint.afterKey());
+        source.put("updated", System.currentTimeMillis());
+        restHighLevelClient.index(new IndexRequest(properties.getRollup().getCheckpointIndex())
+                .id(checkpoint.interval())
+                .source(source), RequestOptions.DEFAULT);
+    }
+
+    private static Instant toInstant(Object epochMillis) {
+        return epochMillis == null ? null : Instant.ofEpochMilli(((Number) epochMillis).longValue());
+    }
+
+    static long floor(long epochMillis, long step) {
+        return Math.floorDiv(epochMillis, step) * step;
+    }
+
+    static long ceil(long epochMillis, long step) {
+        return -Math.floorDiv(-epochMillis, step) * step;
+    }
+
+    /**
+     * @return the interval in the largest whole unit, as accepted by {@code fixed_interval}, e.g. {@code 1h}
+     */
+    public static String intervalName(Duration interval) {
+        if (interval.isNegative() || interval.isZero() || interval.toMillis() % 1000 != 0) {
+            throw new IllegalArgumentException("Rollup interval must be a positive number of seconds: " + interval);
+        }
+        long seconds = interval.toSeconds();
+        if (seconds % 3600 == 0) {
+            return seconds / 3600 + "h";
+        }
+        if (seconds % 60 == 0) {
+            return seconds / 60 + "m";
+        }
+        return seconds + "s";
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("es.rollup.documents", written, LongAdder::sum)
+                .description("Rollup documents written")
+                .register(registry);
+        for (Duration interval : intervals) {
+            String name = intervalName(interval);
+            Gauge.builder("es.rollup.lag", watermarks, w -> w.containsKey(name)
+                            ? Duration.between(w.get(name), Instant.now()).toMillis() / 1000.0 : Double.NaN)
+                    .description("Age of the rollup watermark")
+                    .tag("interval", name)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Progress of an interval. Buckets before {@code watermark} are complete. While a pass towards
+     * {@code target} is unfinished, {@code afterKey} is the last composite key written.
+     */
+    public record Checkpoint(String interval, Instant origin, Instant watermark, Instant target, Map<String, Object> afterKey) {
+    }
+
+    /**
+     * Mergeable totals of a {@code uri} and {@code method}.
+     */
+    static final class Totals {
+        long count;
+        long durationCount;
+        long durationSum;
+        Long durationMax;
+        final Map<String, Long> latency;
+
+        Totals(List<String> latencyKeys) {
+            this.latency = new LinkedHashMap<>();
+            latencyKeys.forEach(key -> latency.put(key, 0L));
+        }
+
+        void add(Totals other) {
+            count += other.count;
+            durationCount += other.durationCount;
+            durationSum += other.durationSum;
+            if (other.durationMax != null) {
+                durationMax = durationMax == null ? other.durationMax : Math.max(durationMax, other.durationMax);
+            }
+            other.latency.forEach((key, value) -> latency.merge(key, value, Long::sum));
+        }
+    }
+}
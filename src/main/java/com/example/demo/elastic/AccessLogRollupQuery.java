@@ -0,0 +1,202 @@
+package com.example.demo.elastic;
+
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregation;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.bucket.composite.TermsValuesSourceBuilder;
+import org.elasticsearch.search.aggregations.metrics.Max;
+import org.elasticsearch.search.aggregations.metrics.Sum;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Answers traffic totals by {@code uri} and {@code method} over a time range. The range is split into the
+ * largest spans covered by complete buckets of the coarsest rollup interval, the remaining edges into spans
+ * of the next finer interval, and whatever no rollup covers yet, typically the last minutes, is aggregated
+ * from the raw {@code access_log-*} documents.
+ */
+public class AccessLogRollupQuery {
+
+    private static final String RAW = "raw";
+    private static final String COUNT = "count";
+
+    private final RestHighLevelClient restHighLevelClient;
+    private final AccessLogRollupManager rollupManager;
+    private final AccessLogProperties properties;
+
+    public AccessLogRollupQuery(RestHighLevelClient restHighLevelClient, AccessLogRollupManager rollupManager,
+                                AccessLogProperties properties) {
+        this.restHighLevelClient = restHighLevelClient;
+        this.rollupManager = rollupManager;
+        this.properties = properties;
+    }
+
+    /**
+     * @param from inclusive lower bound of {@code created}
+     * @param to   exclusive upper bound of {@code created}
+     * @param uri  only this uri when not {@code null}
+     * @param method only this method when not {@code null}
+     */
+    public Traffic traffic(Instant from, Instant to, String uri, String method) throws IOException {
+        List<AccessLogRollupManager.Checkpoint> checkpoints = new ArrayList<>();
+        for (Duration interval : rollupManager.getIntervals()) {
+            checkpoints.add(rollupManager.checkpoint(interval));
+        }
+        List<Segment> segments = new ArrayList<>();
+        plan(from.toEpochMilli(), to.toEpochMilli(), 0, checkpoints, segments);
+
+        Map<List<String>, AccessLogRollupManager.Totals> totals = new HashMap<>();
+        for (Segment segment : segments) {
+            if (RAW.equals(segment.source())) {
+                aggregateRaw(segment, uri, method, totals);
+            } else {
+                aggregateRollup(segment, uri, method, totals);
+            }
+        }
+        List<Row> rows = totals.entrySet().stream()
+                .map(entry -> new Row(entry.getKey().get(0), entry.getKey().get(1), entry.getValue().count,
+                        entry.getValue().durationCount, entry.getValue().durationSum, entry.getValue().durationMax,
+                        entry.getValue().latency))
+                .sorted(Comparator.comparingLong(Row::count).reversed())
+                .toList();
+        return new Traffic(from, to, segments, rows);
+    }
+
+    private void plan(long from, long to, int level, List<AccessLogRollupManager.Checkpoint> checkpoints, List<Segment> segments) {
+        if (from >= to) {
+            return;
+        }
+        if (level == checkpoints.size()) {
+            segments.add(new Segment(RAW, Instant.ofEpochMilli(from), Instant.ofEpochMilli(to)));
+            return;
+        }
+        AccessLogRollupManager.Checkpoint checkpoint = checkpoints.get(level);
+        long step = rollupManager.getIntervals().get(level).toMillis();
+        long start = checkpoint == null ? to : Math.max(AccessLogRollupManager.ceil(from, step), checkpoint.origin().toEpochMilli());
+        long end = checkpoint == null ? to : Math.min(AccessLogRollupManager.floor(to, step), checkpoint.watermark().toEpochMilli());
+        if (start >= end) {
+            plan(from, to, level + 1, checkpoints, segments);
+            return;
+        }
+        plan(from, start, level + 1, checkpoints, segments);
+        segments.add(new Segment(checkpoint.interval(), Instant.ofEpochMilli(start), Instant.ofEpochMilli(end)));
+        plan(end, to, level + 1, checkpoints, segments);
+    }
+
+    private void aggregateRollup(Segment segment, String uri, String method,
+                                 Map<List<String>, AccessLogRollupManager.Totals> totals) throws IOException {
+        BoolQueryBuilder query = filter(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.termQuery("interval", segment.source()))
+                .filter(QueryBuilders.rangeQuery("timestamp")
+                        .gte(segment.from().toEpochMilli())
+                        .lt(segment.to().toEpochMilli())), uri, method);
+        CompositeAggregationBuilder composite = AggregationBuilders.composite(AccessLogRollupManager.BUCKETS, groupBy())
+                .size(properties.getRollup().getPageSize())
+                .subAggregation(AggregationBuilders.sum(COUNT).field(COUNT))
+                .subAggregation(AggregationBuilders.sum(AccessLogRollupManager.DURATION_COUNT).field(AccessLogRollupManager.DURATION_COUNT))
+                .subAggregation(AggregationBuilders.sum(AccessLogRollupManager.DURATION_SUM).field(AccessLogRollupManager.DURATION_SUM))
+                .subAggregation(AggregationBuilders.max(AccessLogRollupManager.DURATION_MAX).field(AccessLogRollupManager.DURATION_MAX));
+        for (String key : rollupManager.getLatencyKeys()) {
+            composite.subAggregation(AggregationBuilders.sum(AccessLogRollupManager.LATENCY + "_" + key)
+                    .field(AccessLogRollupManager.LATENCY + "." + key));
+        }
+        aggregate(new SearchRequest(properties.getRollup().getIndex()), query, composite, totals, bucket -> {
+            Aggregations aggregations = bucket.getAggregations();
+            AccessLogRollupManager.Totals bucketTotals = new AccessLogRollupManager.Totals(rollupManager.getLatencyKeys());
+            bucketTotals.count = sum(aggregations, COUNT);
+            bucketTotals.durationCount = sum(aggregations, AccessLogRollupManager.DURATION_COUNT);
+            bucketTotals.durationSum = sum(aggregations, AccessLogRollupManager.DURATION_SUM);
+            double max = ((Max) aggregations.get(AccessLogRollupManager.DURATION_MAX)).value();
+            bucketTotals.durationMax = Double.isInfinite(max) ? null : (long) max;
+            for (String key : rollupManager.getLatencyKeys()) {
+                bucketTotals.latency.put(key, sum(aggregations, AccessLogRollupManager.LATENCY + "_" + key));
+            }
+            return bucketTotals;
+        });
+    }
+
+    private void aggregateRaw(Segment segment, String uri, String method,
+                              Map<List<String>, AccessLogRollupManager.Totals> totals) throws IOException {
+        BoolQueryBuilder query = filter(QueryBuilders.boolQuery()
+                .filter(QueryBuilders.rangeQuery("created").format("epoch_millis")
+                        .gte(segment.from().toEpochMilli())
+                        .lt(segment.to().toEpochMilli())), uri, method);
+        SearchRequest request = new SearchRequest(properties.getIndexPrefix() + "*").indicesOptions(IndicesOptions.LENIENT_EXPAND_OPEN);
+        aggregate(request, query, rollupManager.compositeAggregation(groupBy()), totals, rollupManager::toTotals);
+    }
+
+    private void aggregate(SearchRequest request, BoolQueryBuilder query, CompositeAggregationBuilder composite,
+                           Map<List<String>, AccessLogRollupManager.Totals> totals,
+                           Function<CompositeAggregation.Bucket, AccessLogRollupManager.Totals> reader) throws IOException {
+        while (true) {
+            SearchResponse response = restHighLevelClient.search(request.source(new SearchSourceBuilder()
+                    .query(query)
+                    .size(0)
+                    .aggregation(composite)), RequestOptions.DEFAULT);
+            CompositeAggregation buckets = response.getAggregations().get(AccessLogRollupManager.BUCKETS);
+            for (CompositeAggregation.Bucket bucket : buckets.getBuckets()) {
+                List<String> key = Arrays.asList((String) bucket.getKey().get("uri"), (String) bucket.getKey().get("method"));
+                totals.computeIfAbsent(key, ignored -> new AccessLogRollupManager.Totals(rollupManager.getLatencyKeys()))
+                        .add(reader.apply(bucket));
+            }
+            if (buckets.getBuckets().size() < composite.size()) {
+                return;
+            }
+            composite.aggregateAfter(buckets.afterKey());
+        }
+    }
+
+    private static List<CompositeValuesSourceBuilder<?>> groupBy() {
+        return List.of(new TermsValuesSourceBuilder("uri").field("uri").missingBucket(true),
+                new TermsValuesSourceBuilder("method").field("method").missingBucket(true));
+    }
+
+    private static BoolQueryBuilder filter(BoolQueryBuilder query, String uri, String method) {
+        if (uri != null) {
+            query.filter(QueryBuilders.termQuery("uri", uri));
+        }
+        if (method != null) {
+            query.filter(QueryBuilders.termQuery("method", method));
+        }
+        return query;
+    }
+
+    private static long sum(Aggregations aggregations, String name) {
+        return (long) ((Sum) aggregations.get(name)).value();
+    }
+
+    /**
+     * @param source interval of the rollup answering the span, or {@code raw}
+     */
+    public record Segment(String source, Instant from, Instant to) {
+    }
+
+    /**
+     * @param latency document counts per latency bucket, of the documents having a duration
+     */
+    public record Row(String uri, String method, long count, long durationCount, long durationSum, Long durationMax,
+                      Map<String, Long> latency) {
+    }
+
+    public record Traffic(Instant from, Instant to, List<Segment> segments, List<Row> rows) {
+    }
+}
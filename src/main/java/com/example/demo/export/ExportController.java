@@ -0,0 +1,107 @@
+package com.example.demo.export;
+
+import com.example.demo.elastic.AccessLogExporter;
+import com.example.demo.elastic.AccessLogProperties;
+import com.example.demo.kdb.KdbTableExporter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kx.c;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Streams large result sets as CSV or NDJSON. Rows are written page by page while they are fetched.
+ * A client that disconnects fails the next write with an {@link IOException}, which ends the export and
+ * releases the point in time or connection it held.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/export")
+public class ExportController {
+
+    private static final Pattern MONTH = Pattern.compile("\\d{6}");
+
+    private final AccessLogExporter accessLogExporter;
+    private final AccessLogProperties accessLogProperties;
+    private final ObjectProvider<KdbTableExporter> kdbTableExporter;
+    private final ObjectMapper objectMapper;
+
+    public ExportController(AccessLogExporter accessLogExporter, AccessLogProperties accessLogProperties,
+                            ObjectProvider<KdbTableExporter> kdbTableExporter, ObjectMapper objectMapper) {
+        this.accessLogExporter = accessLogExporter;
+        this.accessLogProperties = accessLogProperties;
+        this.kdbTableExporter = kdbTableExporter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @param month {@code yyyyMM} of the monthly index and its rollovers, all access log indices when omitted
+     */
+    @GetMapping("/access-logs")
+    public ResponseEntity<StreamingResponseBody> exportAccessLogs(
+            @RequestParam(required = false) String month,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        if (month != null && !MONTH.matcher(month).matches()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'month' must be yyyyMM");
+        }
+        ExportFormat exportFormat = parseFormat(format);
+        String index = accessLogProperties.getIndexPrefix() + (month == null ? "*" : month + "*");
+        String filename = "access_log-" + (month == null ? "all" : month);
+        return stream(exportFormat, filename, outputStream -> {
+            long exported = accessLogExporter.export(index, from, to, exportFormat.createWriter(objectMapper, outputStream));
+            log.debug("Exported {} access logs from {}", exported, index);
+        });
+    }
+
+    @GetMapping("/kdb/{table}")
+    public ResponseEntity<StreamingResponseBody> exportKdbTable(@PathVariable String table,
+                                                                @RequestParam(defaultValue = "csv") String format) {
+        KdbTableExporter exporter = kdbTableExporter.getIfAvailable();
+        if (exporter == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "kdb+ is not configured");
+        }
+        ExportFormat exportFormat = parseFormat(format);
+        return stream(exportFormat, table, outputStream -> {
+            try {
+                long exported = exporter.export(table, exportFormat.createWriter(objectMapper, outputStream));
+                log.debug("Exported {} rows from kdb+ table {}", exported, table);
+            } catch (c.KException e) {
+                throw new IOException("kdb+ export of %s failed: %s".formatted(table, e.getMessage()), e);
+            }
+        });
+    }
+
+    private static ResponseEntity<StreamingResponseBody> stream(ExportFormat format, String filename, StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(filename + "." + format.getExtension()).build().toString())
+                .body(body);
+    }
+
+    private static ExportFormat parseFormat(String format) {
+        try {
+            return ExportFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format '%s'".formatted(format));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.demo.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum ExportFormat {
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(new MediaType("application", "x-ndjson"), "ndjson");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ExportWriter createWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvExportWriter(outputStream);
+            case NDJSON -> new NdjsonExportWriter(objectMapper, outputStream);
+        };
+    }
+}
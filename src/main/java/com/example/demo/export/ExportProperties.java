@@ -0,0 +1,27 @@
+package com.example.demo.export;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@ConfigurationProperties("spring.export")
+@Component
+@Getter
+@Setter
+public class ExportProperties {
+    /**
+     * Number of documents fetched per Elasticsearch search page.
+     */
+    private int pageSize = 1000;
+    /**
+     * Keep alive of the point in time, extended by every page.
+     */
+    private Duration pointInTimeKeepAlive = Duration.ofMinutes(1);
+    /**
+     * Number of rows fetched per kdb+ slice.
+     */
+    private int chunkSize = 10000;
+}
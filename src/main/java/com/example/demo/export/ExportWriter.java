@@ -0,0 +1,16 @@
+package com.example.demo.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes rows incrementally to an output stream. Rows are buffered until {@link #flush()}, which
+ * exporters call once per page, so memory use does not depend on the result size.
+ */
+public interface ExportWriter {
+    void header(List<String> columns) throws IOException;
+
+    void row(Object[] values) throws IOException;
+
+    void flush() throws IOException;
+}
@@ -0,0 +1,10 @@
+package com.example.demo.kdb;
+
+import com.kx.c;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface KdbCallback<T> {
+    T doInConnection(c connection) throws IOException, c.KException;
+}
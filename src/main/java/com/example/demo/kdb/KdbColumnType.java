@@ -0,0 +1,11 @@
+package com.example.demo.kdb;
+
+public enum KdbColumnType {
+    LONG,
+    FLOAT,
+    /**
+     * Buffered as nanoseconds since 2000.01.01 and cast to timestamp by the writer function.
+     */
+    TIMESTAMP,
+    SYMBOL
+}
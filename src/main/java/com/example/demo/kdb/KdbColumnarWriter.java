@@ -0,0 +1,199 @@
+package com.example.demo.kdb;
+
+import com.example.demo.metrics.DeferredTimer;
+import com.kx.c;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers rows per table in {@link KdbTableBuffer}s and writes each batch as a single call of the
+ * writer function with the batch as a {@link c.Flip}. Batches are flushed when a table reaches the
+ * batch size and on every flush interval. Batches of one table are written in order; a failed batch
+ * is retried on the next flush, ahead of the rows buffered since.
+ */
+@Slf4j
+public class KdbColumnarWriter implements SmartLifecycle, MeterBinder {
+
+    private final KdbConnectionPool pool;
+    private final KdbProperties.Writer properties;
+    private final Map<String, KdbTableBuffer> buffers = new LinkedHashMap<>();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final DeferredTimer writeTimer = new DeferredTimer("kdb.write", "Time to write a batch into a table", "table", "outcome");
+    private List<KdbWriteListener> writeListeners = List.of();
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public KdbColumnarWriter(KdbConnectionPool pool, KdbProperties.Writer properties) {
+        this.pool = pool;
+        this.properties = properties;
+        properties.getTables().forEach((table, definition) -> {
+            String[] names = definition.getColumns().stream().map(KdbProperties.Column::getName).toArray(String[]::new);
+            KdbColumnType[] types = definition.getColumns().stream().map(KdbProperties.Column::getType).toArray(KdbColumnType[]::new);
+            buffers.put(table, new KdbTableBuffer(this, table, names, types, properties.getBatchSize()));
+        });
+    }
+
+    public KdbTableBuffer buffer(String table) {
+        KdbTableBuffer buffer = buffers.get(table);
+        if (buffer == null) {
+            throw new IllegalArgumentException("No kdb+ writer table configured for '%s'".formatted(table));
+        }
+        return buffer;
+    }
+
+    public void setWriteListeners(List<KdbWriteListener> writeListeners) {
+        this.writeListeners = List.copyOf(writeListeners);
+    }
+
+    public Collection<KdbTableBuffer> getBuffers() {
+        return buffers.values();
+    }
+
+    public void flush() {
+        buffers.values().forEach(this::flush);
+    }
+
+    /**
+     * Writes the batch that failed last time first, then the buffered rows. A batch that fails is kept
+     * and retried on the next flush, so batches of one table still reach kdb+ in order.
+     *
+     * @return whether every row of the buffer reached kdb+
+     */
+    boolean flush(KdbTableBuffer buffer) {
+        buffer.flushLock.lock();
+        try {
+            if (buffer.pending != null) {
+                if (!write(buffer, buffer.pending, buffer.pendingRows)) {
+                    return false;
+                }
+                buffer.pending = null;
+                buffer.pendingRows = 0;
+            }
+            c.Flip batch;
+            int rows;
+            buffer.lock.lock();
+            try {
+                rows = buffer.size();
+                if (rows == 0) {
+                    return true;
+                }
+                batch = buffer.drain();
+            } finally {
+                buffer.lock.unlock();
+            }
+            if (!write(buffer, batch, rows)) {
+                buffer.pending = batch;
+                buffer.pendingRows = rows;
+                return false;
+            }
+            return true;
+        } finally {
+            buffer.flushLock.unlock();
+        }
+    }
+
+    private boolean write(KdbTableBuffer buffer, c.Flip batch, int rows) {
+        long start = System.nanoTime();
+        try {
+            pool.execute(connection -> connection.k(properties.getFunction(), buffer.getTable(), batch, buffer.getTimestampColumns()));
+            written.add(rows);
+            writeTimer.recordSince(start, buffer.getTable(), "success");
+        } catch (IOException | c.KException e) {
+            failed.add(rows);
+            writeTimer.recordSince(start, buffer.getTable(), "error");
+            log.error("Failed to write {} rows into kdb+ table {}, retrying on the next flush", rows, buffer.getTable(), e);
+            return false;
+        }
+        for (KdbWriteListener listener : writeListeners) {
+            try {
+                listener.onWrite(buffer.getTable(), rows);
+            } catch (RuntimeException e) {
+                log.warn("kdb+ write listener {} failed for table {}", listener.getClass().getSimpleName(), buffer.getTable(), e);
+            }
+        }
+        return true;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("kdb.write.rows", this, KdbColumnarWriter::getWrittenCount)
+                .tag("result", "written").register(registry);
+        FunctionCounter.builder("kdb.write.rows", this, KdbColumnarWriter::getFailedCount)
+                .tag("result", "failed").register(registry);
+        Gauge.builder("kdb.write.pending", this, KdbColumnarWriter::getPendingCount)
+                .description("Rows of failed batches waiting for a retry")
+                .register(registry);
+        writeTimer.bindTo(registry);
+    }
+
+    /**
+     * Rows of failed batches still waiting for a retry.
+     */
+    public long getPendingCount() {
+        return buffers.values().stream().mapToLong(buffer -> buffer.pendingRows).sum();
+    }
+
+    @Override
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("kdb-writer-"));
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(properties.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (KdbTableBuffer buffer : buffers.values()) {
+            if (!flush(buffer)) {
+                log.error("Dropping {} unwritten rows of kdb+ table {} on shutdown", buffer.pendingRows + buffer.size(), buffer.getTable());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the MQTT pipeline so its last batches still get written.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 8;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.demo.kdb;
+
+import com.example.demo.export.ExportProperties;
+import com.example.demo.mqtt.codec.PayloadCodecRegistry;
+import com.example.demo.startup.WarmupTask;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.kdb", name = "host")
+public class KdbConfig {
+    @Bean
+    public KdbConnectionPool kdbConnectionPool(KdbProperties kdbProperties) {
+        KdbConnectionPool pool = new KdbConnectionPool(kdbProperties);
+        if (kdbProperties.getPool().isPrefill()) {
+            pool.prefill();
+        }
+        return pool;
+    }
+
+    @Bean
+    public WarmupTask kdbWarmup(KdbConnectionPool kdbConnectionPool) {
+        return kdbConnectionPool::prefill;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.kdb.writer", name = "enabled", havingValue = "true")
+    public KdbColumnarWriter kdbColumnarWriter(KdbConnectionPool kdbConnectionPool, KdbProperties kdbProperties,
+                                               ObjectProvider<KdbWriteListener> kdbWriteListeners) {
+        KdbColumnarWriter writer = new KdbColumnarWriter(kdbConnectionPool, kdbProperties.getWriter());
+        writer.setWriteListeners(kdbWriteListeners.orderedStream().toList());
+        return writer;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.kdb.query-cache", name = "enabled", havingValue = "true")
+    public KdbQueryCache kdbQueryCache(KdbConnectionPool kdbConnectionPool, KdbProperties kdbProperties) {
+        return new KdbQueryCache(kdbConnectionPool, kdbProperties.getQueryCache());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.kdb.writer", name = "enabled", havingValue = "true")
+    public KdbMqttSink kdbMqttSink(KdbColumnarWriter kdbColumnarWriter, PayloadCodecRegistry payloadCodecRegistry,
+                                   KdbProperties kdbProperties) {
+        return new KdbMqttSink(kdbColumnarWriter, payloadCodecRegistry, kdbProperties.getWriter().getTopics());
+    }
+
+    @Bean
+    public KdbTableExporter kdbTableExporter(KdbConnectionPool kdbConnectionPool, ExportProperties exportProperties) {
+        return new KdbTableExporter(kdbConnectionPool, exportProperties);
+    }
+}
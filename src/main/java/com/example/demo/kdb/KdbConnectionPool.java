@@ -0,0 +1,274 @@
+package com.example.demo.kdb;
+
+import com.example.demo.metrics.DeferredTimer;
+import com.kx.c;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pool of {@link c} connections. Idle connections are handed out most recently used first and
+ * validated with the validation query when they sat idle too long. A background task closes
+ * connections idle past the timeout and refills the pool up to {@code min-idle}, which also
+ * reconnects after kdb+ restarts.
+ */
+@Slf4j
+public class KdbConnectionPool implements Closeable, MeterBinder {
+
+    private static final Pattern QUERY_TYPE = Pattern.compile("\\s*([A-Za-z.][A-Za-z0-9_.]*)");
+
+    private final KdbProperties properties;
+    private final KdbProperties.Pool poolProperties;
+    private final BlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+    private final DeferredTimer queryTimer = new DeferredTimer("kdb.query",
+            "Round trip of a sync kdb+ query, including borrowing the connection", "type", "outcome");
+
+    public KdbConnectionPool(KdbProperties properties) {
+        this.properties = properties;
+        this.poolProperties = properties.getPool();
+        this.permits = new Semaphore(poolProperties.getMaxTotal(), true);
+        this.evictor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("kdb-pool-evictor-"));
+        long interval = poolProperties.getEvictionInterval().toMillis();
+        evictor.scheduleWithFixedDelay(this::evict, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public <T> T execute(KdbCallback<T> callback) throws IOException, c.KException {
+        PooledConnection connection = borrow();
+        try {
+            T result = callback.doInConnection(connection.c);
+            release(connection);
+            return result;
+        } catch (IOException e) {
+            discard(connection);
+            throw e;
+        } catch (c.KException | RuntimeException e) {
+            release(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Runs a sync query, retrying once on a fresh connection if the socket turned out to be broken.
+     */
+    public Object query(String expression, Object... args) throws IOException, c.KException {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            Object result;
+            try {
+                result = execute(connection -> k(connection, expression, args));
+            } catch (IOException e) {
+                log.debug("Retrying kdb+ query on a new connection: {}", e.getMessage());
+                result = execute(connection -> k(connection, expression, args));
+            }
+            outcome = "success";
+            return result;
+        } finally {
+            queryTimer.recordSince(start, queryType(expression), outcome);
+        }
+    }
+
+    /**
+     * Names a query by its leading function or keyword, e.g. {@code .f.toEpoch}, {@code select} or
+     * {@code lambda}, which keeps the tag cardinality bounded.
+     */
+    static String queryType(String expression) {
+        if (expression.stripLeading().startsWith("{")) {
+            return "lambda";
+        }
+        Matcher matcher = QUERY_TYPE.matcher(expression);
+        return matcher.lookingAt() ? matcher.group(1) : "other";
+    }
+
+    /**
+     * Borrows a connection for a pipeline of async messages. The pipeline must be closed.
+     */
+    public KdbPipeline pipeline() throws IOException, c.KException {
+        return new KdbPipeline(this, borrow(), properties.getPipeline().getBatchSize(), poolProperties.getValidationQuery());
+    }
+
+    static Object k(c connection, String expression, Object... args) throws IOException, c.KException {
+        return switch (args.length) {
+            case 0 -> connection.k(expression);
+            case 1 -> connection.k(expression, args[0]);
+            case 2 -> connection.k(expression, args[0], args[1]);
+            case 3 -> connection.k(expression, args[0], args[1], args[2]);
+            default -> connection.k(toCall(expression, args));
+        };
+    }
+
+    static void ks(c connection, String expression, Object... args) throws IOException {
+        switch (args.length) {
+            case 0 -> connection.ks(expression);
+            case 1 -> connection.ks(expression, args[0]);
+            case 2 -> connection.ks(expression, args[0], args[1]);
+            case 3 -> connection.ks(expression, args[0], args[1], args[2]);
+            default -> connection.ks(toCall(expression, args));
+        }
+    }
+
+    private static Object[] toCall(String expression, Object[] args) {
+        Object[] call = new Object[args.length + 1];
+        call[0] = expression.toCharArray();
+        System.arraycopy(args, 0, call, 1, args.length);
+        return call;
+    }
+
+    PooledConnection borrow() throws IOException, c.KException {
+        if (closed) {
+            throw new IOException("kdb+ connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(poolProperties.getBorrowTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out after %s waiting for a kdb+ connection".formatted(poolProperties.getBorrowTimeout()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a kdb+ connection", e);
+        }
+        try {
+            PooledConnection connection;
+            while ((connection = idle.pollFirst()) != null) {
+                if (isValid(connection)) {
+                    return connection;
+                }
+                destroy(connection);
+            }
+            return create();
+        } catch (IOException | c.KException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection connection) {
+        if (closed) {
+            destroy(connection);
+        } else {
+            connection.lastUsed = System.nanoTime();
+            idle.offerFirst(connection);
+        }
+        permits.release();
+    }
+
+    void discard(PooledConnection connection) {
+        destroy(connection);
+        permits.release();
+    }
+
+    private boolean isValid(PooledConnection connection) {
+        if (System.nanoTime() - connection.lastUsed < poolProperties.getValidationInterval().toNanos()) {
+            return true;
+        }
+        try {
+            connection.c.k(poolProperties.getValidationQuery());
+            return true;
+        } catch (IOException | c.KException e) {
+            log.debug("Dropping invalid kdb+ connection: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private PooledConnection create() throws IOException, c.KException {
+        c connection = StringUtils.hasText(properties.getUsername())
+                ? new c(properties.getHost(), properties.getPort(), properties.getUsername() + ":" + properties.getPassword())
+                : new c(properties.getHost(), properties.getPort());
+        total.incrementAndGet();
+        return new PooledConnection(connection);
+    }
+
+    private void destroy(PooledConnection connection) {
+        total.decrementAndGet();
+        try {
+            connection.c.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * Opens connections until {@code min-idle} are available.
+     */
+    public void prefill() {
+        while (!closed && total.get() < poolProperties.getMinIdle()) {
+            try {
+                PooledConnection connection = create();
+                connection.lastUsed = System.nanoTime();
+                idle.offerLast(connection);
+            } catch (IOException | c.KException e) {
+                log.warn("Failed to open kdb+ connection to {}:{}: {}", properties.getHost(), properties.getPort(), e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void evict() {
+        long timeout = poolProperties.getIdleTimeout().toNanos();
+        long now = System.nanoTime();
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+        while (iterator.hasNext() && idle.size() > poolProperties.getMinIdle()) {
+            PooledConnection connection = iterator.next();
+            if (now - connection.lastUsed > timeout && idle.remove(connection)) {
+                destroy(connection);
+            }
+        }
+        prefill();
+    }
+
+    public int getActiveCount() {
+        return total.get() - idle.size();
+    }
+
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("kdb.pool.active", this, KdbConnectionPool::getActiveCount)
+                .description("Borrowed kdb+ connections")
+                .register(registry);
+        Gauge.builder("kdb.pool.idle", this, KdbConnectionPool::getIdleCount)
+                .description("Idle kdb+ connections")
+                .register(registry);
+        queryTimer.bindTo(registry);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        evictor.shutdownNow();
+        PooledConnection connection;
+        while ((connection = idle.pollFirst()) != null) {
+            destroy(connection);
+        }
+    }
+
+    static final class PooledConnection {
+        final c c;
+        volatile long lastUsed = System.nanoTime();
+
+        PooledConnection(c c) {
+            this.c = c;
+        }
+    }
+}
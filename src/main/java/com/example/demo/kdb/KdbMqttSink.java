@@ -0,0 +1,128 @@
+package com.example.demo.kdb;
+
+import com.example.demo.mqtt.MqttBatchSink;
+import com.example.demo.mqtt.codec.BinaryRecord;
+import com.example.demo.mqtt.codec.PayloadCodecRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttTopic;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feeds {@link BinaryRecord} payloads of the mapped topics into the {@link KdbColumnarWriter}.
+ * Columns are filled in table order: the first timestamp column takes the record timestamp,
+ * symbol columns take the topic, and every other column takes the next record field.
+ */
+@Slf4j
+public class KdbMqttSink implements MqttBatchSink, MeterBinder {
+
+    private static final int MAX_RESOLVED_TOPICS = 10_000;
+
+    private final KdbColumnarWriter writer;
+    private final PayloadCodecRegistry payloadCodecRegistry;
+    private final Map<String, String> topicTables;
+    private final Cache<String, Optional<KdbTableBuffer>> resolved = Caffeine.newBuilder().maximumSize(MAX_RESOLVED_TOPICS).build();
+    private final LongAdder rejected = new LongAdder();
+
+    public KdbMqttSink(KdbColumnarWriter writer, PayloadCodecRegistry payloadCodecRegistry, Map<String, String> topicTables) {
+        this.writer = writer;
+        this.payloadCodecRegistry = payloadCodecRegistry;
+        this.topicTables = topicTables;
+    }
+
+    /**
+     * Flushes the tables the batch touched before returning, so an acknowledged batch is in kdb+.
+     *
+     * @throws IOException if a table could not be written; its rows stay buffered for the next flush
+     */
+    @Override
+    public void accept(List<Message<?>> batch) throws IOException {
+        Set<KdbTableBuffer> touched = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Message<?> message : batch) {
+            String topic = message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class);
+            Optional<KdbTableBuffer> buffer = topic == null ? Optional.empty() : resolve(topic);
+            if (buffer.isEmpty()) {
+                continue;
+            }
+            Object payload = null;
+            try {
+                payload = payloadCodecRegistry.decode(message);
+                if (payload instanceof BinaryRecord record) {
+                    append(buffer.get(), topic, record);
+                    touched.add(buffer.get());
+                } else {
+                    rejected.increment();
+                    log.warn("Skipping non binary payload on {} for kdb+ table {}", topic, buffer.get().getTable());
+                }
+            } catch (RuntimeException e) {
+                // [NOTE] A malformed message is skipped, failing the batch would only redeliver it with the good rows.
+                rejected.increment();
+                log.warn("Skipping malformed payload on {} for kdb+ table {}", topic, buffer.get().getTable(), e);
+            } finally {
+                if (payload != null) {
+                    payloadCodecRegistry.release(message, payload);
+                }
+            }
+        }
+        for (KdbTableBuffer buffer : touched) {
+            if (!writer.flush(buffer)) {
+                throw new IOException("Failed to write the batch into kdb+ table " + buffer.getTable());
+            }
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("kdb.mqtt.rejected", this, KdbMqttSink::getRejectedCount)
+                .description("MQTT messages skipped because their payload could not be written")
+                .register(registry);
+    }
+
+    private Optional<KdbTableBuffer> resolve(String topic) {
+        return resolved.get(topic, t -> topicTables.entrySet().stream()
+                .filter(entry -> MqttTopic.isMatched(entry.getKey(), t))
+                .findFirst()
+                .map(entry -> writer.buffer(entry.getValue())));
+    }
+
+    private static void append(KdbTableBuffer buffer, String topic, BinaryRecord record) {
+        buffer.beginRow();
+        try {
+            boolean timestampTaken = false;
+            int field = 0;
+            for (int column = 0; column < buffer.getColumnCount(); column++) {
+                switch (buffer.getColumnType(column)) {
+                    case TIMESTAMP -> {
+                        buffer.setTimestamp(column, timestampTaken ? record.getLong(field++) : record.getTimestamp());
+                        timestampTaken = true;
+                    }
+                    case SYMBOL -> buffer.setSymbol(column, topic);
+                    case LONG -> buffer.setLong(column, record.getLong(field++));
+                    case FLOAT -> buffer.setFloat(column, record.getDouble(field++));
+                }
+            }
+        } catch (RuntimeException e) {
+            buffer.cancelRow();
+            throw e;
+        }
+        buffer.endRow();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.kdb;
+
+import com.kx.c;
+
+import java.io.IOException;
+
+/**
+ * Sends async ({@code ks}) messages over a single borrowed connection without waiting for each one.
+ * kdb+ processes the messages of a connection in order, so a sync round trip of the validation query
+ * at {@link #flush()} confirms everything sent before it. Errors of async messages are not reported
+ * back by kdb+.
+ */
+public class KdbPipeline implements AutoCloseable {
+
+    private final KdbConnectionPool pool;
+    private final KdbConnectionPool.PooledConnection connection;
+    private final int batchSize;
+    private final String syncQuery;
+    private int pending;
+    private boolean broken;
+
+    KdbPipeline(KdbConnectionPool pool, KdbConnectionPool.PooledConnection connection, int batchSize, String syncQuery) {
+        this.pool = pool;
+        this.connection = connection;
+        this.batchSize = batchSize;
+        this.syncQuery = syncQuery;
+    }
+
+    public void ks(String expression, Object... args) throws IOException, c.KException {
+        try {
+            KdbConnectionPool.ks(connection.c, expression, args);
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+        if (++pending >= batchSize) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException, c.KException {
+        if (pending == 0) {
+            return;
+        }
+        try {
+            connection.c.k(syncQuery);
+            pending = 0;
+        } catch (IOException e) {
+            broken = true;
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException, c.KException {
+        try {
+            if (!broken) {
+                flush();
+            }
+        } finally {
+            if (broken) {
+                pool.discard(connection);
+            } else {
+                pool.release(connection);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.demo.kdb;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@ConfigurationProperties("spring.kdb")
+@Component
+@Getter
+@Setter
+public class KdbProperties {
+    private String host;
+    private Integer port = 5000;
+    private String username;
+    private String password;
+    private Pool pool = new Pool();
+    private Pipeline pipeline = new Pipeline();
+    private Writer writer = new Writer();
+    private QueryCache queryCache = new QueryCache();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int minIdle = 1;
+        private int maxTotal = 8;
+        /**
+         * Open {@link #minIdle} connections while the context starts. When false the pool is filled by the warm-up.
+         */
+        private boolean prefill = true;
+        private String validationQuery = "1";
+        /**
+         * Connections idle longer than this are validated before being handed out.
+         */
+        private Duration validationInterval = Duration.ofSeconds(30);
+        /**
+         * Idle connections above {@link #minIdle} are closed after this time.
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+        private Duration evictionInterval = Duration.ofSeconds(30);
+        private Duration borrowTimeout = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Pipeline {
+        /**
+         * Number of async messages after which a pipeline pays a sync round trip.
+         */
+        private int batchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Writer {
+        private boolean enabled;
+        /**
+         * Rows buffered per table before a flush.
+         */
+        private int batchSize = 10000;
+        /**
+         * Buffered rows are flushed at least this often.
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+        /**
+         * Function called with the table name, the batch as a table, and the names of timestamp
+         * columns, which are sent as nanoseconds since 2000.01.01.
+         */
+        private String function = "{[t;x;p] t insert @[x;p;\"p\"$]}";
+        private Map<String, Table> tables = new LinkedHashMap<>();
+        /**
+         * Target table per MQTT topic filter, evaluated in order.
+         */
+        private Map<String, String> topics = new LinkedHashMap<>();
+    }
+
+    @Getter
+    @Setter
+    public static class QueryCache {
+        private boolean enabled;
+        /**
+         * Upper bound of the cached results, measured by their kdb+ IPC serialized size.
+         */
+        private DataSize maximumSize = DataSize.ofMegabytes(64);
+        /**
+         * Time to live of results queried without an explicit TTL.
+         */
+        private Duration ttl = Duration.ofSeconds(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Table {
+        private List<Column> columns = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Column {
+        private String name;
+        private KdbColumnType type;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.demo.kdb;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.kx.c;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caches deserialized query results keyed by the whitespace-normalized expression and its arguments,
+ * so a hit costs neither a round trip nor deserialization.
+ * <p>
+ * The cache is bounded by the IPC serialized size of the results, and every entry expires after its own TTL.
+ * Results queried with dependent tables are invalidated when the {@link KdbColumnarWriter} writes into one of them.
+ * A result whose tables were written while it was queried is returned once but not cached. Concurrent misses of
+ * the same key share one query. Cached results are shared between callers and must not be modified.
+ */
+@Slf4j
+public class KdbQueryCache implements KdbWriteListener, MeterBinder {
+
+    private final KdbConnectionPool pool;
+    private final Duration defaultTtl;
+    private final Cache<Key, Entry> cache;
+    private final Map<String, Map<Key, Entry>> entriesByTable = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+    private final c sizer = new c();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public KdbQueryCache(KdbConnectionPool pool, KdbProperties.QueryCache properties) {
+        this.pool = pool;
+        this.defaultTtl = properties.getTtl();
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumSize().toBytes())
+                .weigher((Key key, Entry entry) -> entry.weight)
+                .expireAfter(new Expiry<Key, Entry>() {
+                    @Override
+                    public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // [NOTE] Runs on the removing thread, so the entries by table do not lag behind the cache.
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    public Object query(String expression, Object... args) throws IOException, c.KException {
+        return query(defaultTtl, List.of(), expression, args);
+    }
+
+    /**
+     * @param ttl    time the result is served from the cache
+     * @param tables tables the result depends on, invalidated by writes through the {@link KdbColumnarWriter}
+     */
+    public Object query(Duration ttl, Collection<String> tables, String expression, Object... args)
+            throws IOException, c.KException {
+        Key key = new Key(normalize(expression), args);
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            hits.increment();
+            return entry.result;
+        }
+        Entry[] loaded = new Entry[1];
+        try {
+            entry = cache.get(key, k -> {
+                loaded[0] = load(k, expression, args, ttl, tables);
+                return loaded[0].stale() ? null : loaded[0];
+            });
+        } catch (LoadException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw (c.KException) e.getCause();
+        }
+        if (entry == null) {
+            // [NOTE] A stale result is not cached. Callers that waited on the same load query again.
+            return loaded[0] != null ? loaded[0].result : pool.query(expression, args);
+        }
+        return entry.result;
+    }
+
+    private Entry load(Key key, String expression, Object[] args, Duration ttl, Collection<String> tables) {
+        misses.increment();
+        long[] before = new long[tables.size()];
+        int i = 0;
+        for (String table : tables) {
+            before[i++] = generation(table).get();
+        }
+        Object result;
+        try {
+            result = pool.query(expression, args);
+        } catch (IOException | c.KException e) {
+            throw new LoadException(e);
+        }
+        Entry entry = new Entry(result, weigh(result), ttl.toNanos(), Set.copyOf(tables), false);
+        tables.forEach(table -> entriesByTable.computeIfAbsent(table, t -> new ConcurrentHashMap<>()).put(key, entry));
+        // [NOTE] Registered before comparing the generations, so a later write invalidates the key once it is loaded.
+        i = 0;
+        for (String table : tables) {
+            if (generation(table).get() != before[i++]) {
+                unregister(key, entry);
+                return new Entry(result, entry.weight, entry.ttlNanos, entry.tables, true);
+            }
+        }
+        return entry;
+    }
+
+    private AtomicLong generation(String table) {
+        return generations.computeIfAbsent(table, t -> new AtomicLong());
+    }
+
+    private int weigh(Object result) {
+        try {
+            return result == null ? 0 : sizer.nx(result);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not size kdb+ result of {}: {}", result.getClass().getName(), e.getMessage());
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private void onRemoval(Key key, Entry entry, RemovalCause cause) {
+        if (key != null && entry != null) {
+            unregister(key, entry);
+        }
+    }
+
+    /**
+     * Unregisters the entry from its tables unless a newer entry of the key was registered meanwhile.
+     */
+    private void unregister(Key key, Entry entry) {
+        entry.tables.forEach(table -> entriesByTable.computeIfPresent(table, (t, entries) -> {
+            entries.computeIfPresent(key, (k, registered) -> registered == entry ? null : registered);
+            return entries.isEmpty() ? null : entries;
+        }));
+    }
+
+    /**
+     * Drops every cached result depending on the table.
+     */
+    public void invalidate(String table) {
+        generation(table).incrementAndGet();
+        Map<Key, Entry> entries = entriesByTable.remove(table);
+        if (entries != null) {
+            cache.invalidateAll(entries.keySet());
+        }
+    }
+
+    public void invalidateAll() {
+        generations.values().forEach(AtomicLong::incrementAndGet);
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void onWrite(String table, int rows) {
+        invalidate(table);
+    }
+
+    /**
+     * Collapses whitespace outside of string literals, so formatting differences map to the same key.
+     */
+    static String normalize(String expression) {
+        StringBuilder normalized = new StringBuilder(expression.length());
+        boolean quoted = false;
+        boolean space = false;
+        for (int i = 0; i < expression.length(); i++) {
+            char ch = expression.charAt(i);
+            if (quoted) {
+                normalized.append(ch);
+                if (ch == '\\' && i + 1 < expression.length()) {
+                    normalized.append(expression.charAt(++i));
+                } else if (ch == '"') {
+                    quoted = false;
+                }
+            } else if (Character.isWhitespace(ch)) {
+                space = true;
+            } else {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                space = false;
+                normalized.append(ch);
+                quoted = ch == '"';
+            }
+        }
+        return normalized.toString();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getWeightedSize() {
+        return cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("kdb.query.cache", this, KdbQueryCache::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("kdb.query.cache", this, KdbQueryCache::getMissCount)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("kdb.query.cache.size", this, KdbQueryCache::getWeightedSize)
+                .description("Serialized size of the cached results")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static final class Key {
+        private final String expression;
+        private final Object[] args;
+        private final int hash;
+
+        Key(String expression, Object[] args) {
+            this.expression = expression;
+            this.args = args.clone();
+            this.hash = 31 * expression.hashCode() + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && expression.equals(other.expression) && Arrays.deepEquals(args, other.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * @param stale whether a dependent table was written while the result was queried
+     */
+    private record Entry(Object result, int weight, long ttlNanos, Set<String> tables, boolean stale) {
+    }
+
+    private static final class LoadException extends RuntimeException {
+        LoadException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.demo.kdb;
+
+import com.kx.c;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Column-oriented row buffer of one kdb+ table, backed by primitive arrays.
+ * Rows are written between {@link #beginRow()} and {@link #endRow()}:
+ * <pre>
+ * buffer.beginRow();
+ * buffer.setTimestamp(0, epochNanos).setSymbol(1, "AAPL").setFloat(2, 101.5).setLong(3, 100);
+ * buffer.endRow();
+ * </pre>
+ */
+public final class KdbTableBuffer {
+
+    private static final long NANOS_1970_TO_2000 = 946_684_800_000_000_000L;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final KdbColumnarWriter writer;
+    private final String table;
+    private final String[] names;
+    private final KdbColumnType[] types;
+    private final String[] timestampColumns;
+    private final int batchSize;
+    private final Object[] columns;
+    private int capacity;
+    private int size;
+
+    final ReentrantLock lock = new ReentrantLock();
+    final ReentrantLock flushLock = new ReentrantLock();
+    /** Last batch that failed to write, retried before the buffered rows. Guarded by {@link #flushLock}. */
+    c.Flip pending;
+    volatile int pendingRows;
+
+    KdbTableBuffer(KdbColumnarWriter writer, String table, String[] names, KdbColumnType[] types, int batchSize) {
+        this.writer = writer;
+        this.table = table;
+        this.names = names;
+        this.types = types;
+        this.batchSize = batchSize;
+        this.timestampColumns = timestampColumns(names, types);
+        this.columns = new Object[types.length];
+        this.capacity = Math.max(1, Math.min(batchSize, INITIAL_CAPACITY));
+        for (int i = 0; i < types.length; i++) {
+            columns[i] = allocate(types[i], capacity);
+        }
+    }
+
+    private static String[] timestampColumns(String[] names, KdbColumnType[] types) {
+        return IntStream.range(0, names.length)
+                .filter(i -> types[i] == KdbColumnType.TIMESTAMP)
+                .mapToObj(i -> names[i])
+                .toArray(String[]::new);
+    }
+
+    private static Object allocate(KdbColumnType type, int capacity) {
+        return switch (type) {
+            case LONG, TIMESTAMP -> new long[capacity];
+            case FLOAT -> new double[capacity];
+            case SYMBOL -> new String[capacity];
+        };
+    }
+
+    private static Object grow(Object column, int capacity) {
+        if (column instanceof long[] longs) {
+            return Arrays.copyOf(longs, capacity);
+        }
+        if (column instanceof double[] doubles) {
+            return Arrays.copyOf(doubles, capacity);
+        }
+        return Arrays.copyOf((String[]) column, capacity);
+    }
+
+    private static Object trim(Object column, int size) {
+        if (column instanceof long[] longs) {
+            return Arrays.copyOf(longs, size);
+        }
+        if (column instanceof double[] doubles) {
+            return Arrays.copyOf(doubles, size);
+        }
+        return Arrays.copyOf((String[]) column, size);
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String[] getColumnNames() {
+        return names.clone();
+    }
+
+    public KdbColumnType getColumnType(int column) {
+        return types[column];
+    }
+
+    public int getColumnCount() {
+        return types.length;
+    }
+
+    /**
+     * Locks the buffer for the current thread. Must be followed by {@link #endRow()} or {@link #cancelRow()}.
+     */
+    public void beginRow() {
+        lock.lock();
+        if (size == capacity) {
+            capacity *= 2;
+            for (int i = 0; i < columns.length; i++) {
+                columns[i] = grow(columns[i], capacity);
+            }
+        }
+    }
+
+    public KdbTableBuffer setLong(int column, long value) {
+        ((long[]) columns[column])[size] = value;
+        return this;
+    }
+
+    public KdbTableBuffer setFloat(int column, double value) {
+        ((double[]) columns[column])[size] = value;
+        return this;
+    }
+
+    public KdbTableBuffer setTimestamp(int column, long epochNanos) {
+        ((long[]) columns[column])[size] = epochNanos - NANOS_1970_TO_2000;
+        return this;
+    }
+
+    public KdbTableBuffer setSymbol(int column, String value) {
+        ((String[]) columns[column])[size] = value == null ? "" : value;
+        return this;
+    }
+
+    public void endRow() {
+        boolean full;
+        try {
+            full = ++size >= batchSize;
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            writer.flush(this);
+        }
+    }
+
+    public void cancelRow() {
+        lock.unlock();
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Takes the buffered rows as a table and resets the buffer, keeping its arrays. Caller holds {@link #lock}.
+     */
+    c.Flip drain() {
+        Object[] data = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            data[i] = trim(columns[i], size);
+            if (columns[i] instanceof String[] symbols) {
+                Arrays.fill(symbols, 0, size, null);
+            }
+        }
+        size = 0;
+        return new c.Flip(new c.Dict(names, data));
+    }
+
+    String[] getTimestampColumns() {
+        return timestampColumns;
+    }
+}
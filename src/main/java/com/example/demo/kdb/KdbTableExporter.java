@@ -0,0 +1,77 @@
+package com.example.demo.kdb;
+
+import com.example.demo.export.ExportProperties;
+import com.example.demo.export.ExportWriter;
+import com.kx.c;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Streams a kdb+ table in slices of {@code chunk-size} rows, so neither side materializes the whole table.
+ * Each slice borrows a pooled connection for a single query only.
+ */
+public class KdbTableExporter {
+
+    private static final Pattern TABLE_NAME = Pattern.compile("[A-Za-z.][A-Za-z0-9_.]*");
+    private static final String SLICE = "{[t;o;n] 0!(o;n) sublist value t}";
+    private static final String COUNT = "{count value x}";
+
+    private final KdbConnectionPool pool;
+    private final ExportProperties properties;
+
+    public KdbTableExporter(KdbConnectionPool pool, ExportProperties properties) {
+        this.pool = pool;
+        this.properties = properties;
+    }
+
+    /**
+     * @return number of exported rows
+     */
+    public long export(String table, ExportWriter writer) throws IOException, c.KException {
+        if (!TABLE_NAME.matcher(table).matches()) {
+            throw new IllegalArgumentException("Invalid kdb+ table name '%s'".formatted(table));
+        }
+        long count = (Long) pool.query(COUNT, table);
+        long chunkSize = properties.getChunkSize();
+        boolean header = false;
+        long exported = 0;
+        for (long offset = 0; offset < count; offset += chunkSize) {
+            c.Flip slice = (c.Flip) pool.query(SLICE, table, offset, chunkSize);
+            if (!header) {
+                writer.header(List.of(slice.x));
+                header = true;
+            }
+            int rows = slice.y.length == 0 ? 0 : Array.getLength(slice.y[0]);
+            Object[] values = new Object[slice.x.length];
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < values.length; column++) {
+                    values[column] = toValue(Array.get(slice.y[column], row));
+                }
+                writer.row(values);
+            }
+            writer.flush();
+            exported += rows;
+            if (rows < chunkSize) {
+                break;
+            }
+        }
+        if (!header) {
+            writer.header(List.of());
+            writer.flush();
+        }
+        return exported;
+    }
+
+    private static Object toValue(Object value) {
+        if (value instanceof char[] chars) {
+            return new String(chars);
+        }
+        if (value instanceof Number || value instanceof String || value instanceof Boolean || value == null) {
+            return value;
+        }
+        return value.toString();
+    }
+}
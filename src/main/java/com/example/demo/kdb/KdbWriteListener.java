@@ -0,0 +1,9 @@
+package com.example.demo.kdb;
+
+/**
+ * Notified by the {@link KdbColumnarWriter} after a batch was written into a table.
+ */
+@FunctionalInterface
+public interface KdbWriteListener {
+    void onWrite(String table, int rows);
+}
@@ -0,0 +1,114 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer of a component that is created before the registry binds it as a {@link MeterBinder}. Records
+ * nothing until bound. Each combination of tag values is registered once and reused afterwards, so
+ * recording does not go through the registry. Up to two tag keys are supported, each with its own
+ * overloads, so recording does not allocate once the combination is registered.
+ */
+public class DeferredTimer {
+
+    private static final int MAX_TAG_KEYS = 2;
+
+    private final String name;
+    private final String description;
+    private final String[] tagKeys;
+    private final Map<String, Timer> timersByValue = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Timer>> timersByValues = new ConcurrentHashMap<>();
+    private volatile Timer untagged;
+    private volatile MeterRegistry registry;
+
+    public DeferredTimer(String name, String description, String... tagKeys) {
+        if (tagKeys.length > MAX_TAG_KEYS) {
+            throw new IllegalArgumentException("Timer %s takes at most %d tag keys, got %d".formatted(name, MAX_TAG_KEYS, tagKeys.length));
+        }
+        this.name = name;
+        this.description = description;
+        this.tagKeys = tagKeys.clone();
+    }
+
+    /**
+     * Called from the {@link MeterBinder#bindTo} of the owning component.
+     */
+    public void bindTo(MeterRegistry registry) {
+        timersByValue.clear();
+        timersByValues.clear();
+        untagged = tagKeys.length == 0 ? register(registry) : null;
+        this.registry = registry;
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, taken from {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordSince(long startNanos, String tagValue) {
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS, tagValue);
+    }
+
+    public void recordSince(long startNanos, String firstTagValue, String secondTagValue) {
+        record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS, firstTagValue, secondTagValue);
+    }
+
+    public void record(long amount, TimeUnit unit) {
+        if (registry == null) {
+            return;
+        }
+        checkArity(0);
+        untagged.record(amount, unit);
+    }
+
+    public void record(long amount, TimeUnit unit, String tagValue) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        checkArity(1);
+        Timer timer = timersByValue.get(tagValue);
+        if (timer == null) {
+            timer = timersByValue.computeIfAbsent(tagValue, value -> register(registry, value));
+        }
+        timer.record(amount, unit);
+    }
+
+    public void record(long amount, TimeUnit unit, String firstTagValue, String secondTagValue) {
+        MeterRegistry registry = this.registry;
+        if (registry == null) {
+            return;
+        }
+        checkArity(2);
+        Map<String, Timer> timers = timersByValues.get(firstTagValue);
+        if (timers == null) {
+            timers = timersByValues.computeIfAbsent(firstTagValue, value -> new ConcurrentHashMap<>());
+        }
+        Timer timer = timers.get(secondTagValue);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(secondTagValue, value -> register(registry, firstTagValue, value));
+        }
+        timer.record(amount, unit);
+    }
+
+    private void checkArity(int tagValues) {
+        if (tagValues != tagKeys.length) {
+            throw new IllegalArgumentException("Timer %s takes %d tag values, got %d".formatted(name, tagKeys.length, tagValues));
+        }
+    }
+
+    private Timer register(MeterRegistry registry, String... tagValues) {
+        Timer.Builder builder = Timer.builder(name).description(description);
+        for (int i = 0; i < tagKeys.length; i++) {
+            builder.tag(tagKeys[i], tagValues[i]);
+        }
+        return builder.register(registry);
+    }
+}
@@ -0,0 +1,284 @@
+package com.example.demo.mqtt;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.IMqttActionListener;
+import org.eclipse.paho.client.mqttv3.IMqttAsyncClient;
+import org.eclipse.paho.client.mqttv3.IMqttToken;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHandlingException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes over a pool of {@link IMqttAsyncClient} connections without waiting for each ack.
+ * Each connection admits at most {@code max-inflight} unacknowledged publishes. Failed publishes
+ * are retried, on any connection, until {@code max-retries} is exhausted.
+ */
+@Slf4j
+public class MqttAsyncPublisher implements MessageHandler, SmartLifecycle, MeterBinder {
+
+    private final MqttProperties mqttProperties;
+    private final MqttProperties.Outbound properties;
+    private final MqttPahoClientFactory clientFactory;
+    private volatile List<Connection> connections = List.of();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+
+    public MqttAsyncPublisher(MqttProperties mqttProperties, MqttPahoClientFactory clientFactory) {
+        this.mqttProperties = mqttProperties;
+        this.properties = mqttProperties.getOutbound();
+        this.clientFactory = clientFactory;
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        String topic = message.getHeaders().get(MqttHeaders.TOPIC, String.class);
+        if (!StringUtils.hasText(topic)) {
+            topic = properties.getDefaultTopic();
+        }
+        if (!StringUtils.hasText(topic)) {
+            throw new MessageHandlingException(message, "No topic header and no default topic configured");
+        }
+        Integer qos = message.getHeaders().get(MqttHeaders.QOS, Integer.class);
+        Boolean retained = message.getHeaders().get(MqttHeaders.RETAINED, Boolean.class);
+
+        Object payload = message.getPayload();
+        byte[] bytes = payload instanceof byte[] b ? b : payload.toString().getBytes(StandardCharsets.UTF_8);
+
+        String target = topic;
+        publish(topic, bytes, qos != null ? qos : mqttProperties.getQos(), retained != null && retained)
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.error("Failed to publish to {}", target, e);
+                    }
+                });
+    }
+
+    public CompletableFuture<Void> publish(String topic, byte[] payload, int qos, boolean retained) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        if (!running) {
+            future.completeExceptionally(new IllegalStateException("MQTT publisher is not running"));
+            return future;
+        }
+        Connection connection = nextConnection();
+        if (connection == null) {
+            future.completeExceptionally(new IllegalStateException("MQTT publisher is not running"));
+            return future;
+        }
+        try {
+            if (!connection.permits.tryAcquire(properties.getPublishTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new TimeoutException("No in-flight slot available within " + properties.getPublishTimeout()));
+                return future;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        new Publish(topic, payload, qos, retained, future).send(connection);
+        return future;
+    }
+
+    /**
+     * @return the next connection in turn, or {@code null} once the publisher has stopped
+     */
+    private Connection nextConnection() {
+        List<Connection> connections = this.connections;
+        if (connections.isEmpty()) {
+            return null;
+        }
+        return connections.get(Math.floorMod(next.getAndIncrement(), connections.size()));
+    }
+
+    private void connect(Connection connection) {
+        if (!running) {
+            return;
+        }
+        try {
+            connection.client.connect(clientFactory.getConnectionOptions(), null, new IMqttActionListener() {
+                @Override
+                public void onSuccess(IMqttToken asyncActionToken) {
+                    log.info("MQTT publisher {} connected", connection.client.getClientId());
+                }
+
+                @Override
+                public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+                    log.warn("MQTT publisher {} failed to connect: {}", connection.client.getClientId(), exception.getMessage());
+                    scheduleConnect(connection);
+                }
+            });
+        } catch (MqttException e) {
+            log.warn("MQTT publisher {} failed to connect: {}", connection.client.getClientId(), e.getMessage());
+            scheduleConnect(connection);
+        }
+    }
+
+    private void scheduleConnect(Connection connection) {
+        if (running) {
+            schedule(() -> connect(connection), properties.getRetryInterval().toMillis());
+        }
+    }
+
+    /**
+     * @return whether the task was scheduled, which fails once {@link #stop()} shut the scheduler down
+     */
+    private boolean schedule(Runnable task, long delayMillis) {
+        try {
+            scheduler.schedule(task, delayMillis, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        String broker = "tcp://%s:%s".formatted(mqttProperties.getHost(), mqttProperties.getPort());
+        String clientId = StringUtils.hasText(mqttProperties.getClientId())
+                ? mqttProperties.getClientId() : UUID.randomUUID().toString();
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < properties.getConnections(); i++) {
+                IMqttAsyncClient client = clientFactory.getAsyncClientInstance(broker, clientId + "-pub-" + i);
+                connections.add(new Connection(client, new Semaphore(properties.getMaxInflight())));
+            }
+        } catch (MqttException e) {
+            throw new IllegalStateException("Failed to create MQTT publisher clients", e);
+        }
+        this.connections = List.copyOf(connections);
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mqtt-publisher-"));
+        running = true;
+        this.connections.forEach(this::connect);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        List<Connection> connections = this.connections;
+        this.connections = List.of();
+        for (Connection connection : connections) {
+            try {
+                if (connection.client.isConnected()) {
+                    connection.client.disconnect().waitForCompletion(properties.getPublishTimeout().toMillis());
+                }
+                connection.client.close();
+            } catch (MqttException e) {
+                log.warn("Failed to close MQTT publisher {}", connection.client.getClientId(), e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return mqttProperties.isAutoStartup();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isConnected() {
+        List<Connection> connections = this.connections;
+        return !connections.isEmpty() && connections.stream().allMatch(c -> c.client.isConnected());
+    }
+
+    public int getInflightCount() {
+        return connections.stream().mapToInt(c -> properties.getMaxInflight() - c.permits.availablePermits()).sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mqtt.outbound.inflight", this, MqttAsyncPublisher::getInflightCount)
+                .description("Publishes waiting for their acknowledgement")
+                .register(registry);
+    }
+
+    private record Connection(IMqttAsyncClient client, Semaphore permits) {
+    }
+
+    private class Publish implements IMqttActionListener {
+        private final String topic;
+        private final byte[] payload;
+        private final int qos;
+        private final boolean retained;
+        private final CompletableFuture<Void> future;
+        private int attempt;
+        private Connection connection;
+
+        Publish(String topic, byte[] payload, int qos, boolean retained, CompletableFuture<Void> future) {
+            this.topic = topic;
+            this.payload = payload;
+            this.qos = qos;
+            this.retained = retained;
+            this.future = future;
+        }
+
+        /**
+         * Sends on a connection whose in-flight permit is already held by this publish.
+         */
+        void send(Connection connection) {
+            this.connection = connection;
+            try {
+                connection.client.publish(topic, payload, qos, retained, null, this);
+            } catch (MqttException e) {
+                onFailure(null, e);
+            }
+        }
+
+        @Override
+        public void onSuccess(IMqttToken asyncActionToken) {
+            connection.permits.release();
+            future.complete(null);
+        }
+
+        @Override
+        public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+            connection.permits.release();
+            if (!running || ++attempt > properties.getMaxRetries()
+                    || !schedule(this::retry, properties.getRetryInterval().toMillis() * attempt)) {
+                future.completeExceptionally(exception);
+            }
+        }
+
+        private void retry() {
+            Connection candidate = nextConnection();
+            if (candidate == null) {
+                future.completeExceptionally(new IllegalStateException("MQTT publisher is not running"));
+            } else if (candidate.permits.tryAcquire()) {
+                send(candidate);
+            } else if (!schedule(this::retry, properties.getRetryInterval().toMillis())) {
+                future.completeExceptionally(new IllegalStateException("MQTT publisher is not running"));
+            }
+        }
+    }
+}
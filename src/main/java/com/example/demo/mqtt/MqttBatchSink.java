@@ -0,0 +1,13 @@
+package com.example.demo.mqtt;
+
+import org.springframework.messaging.Message;
+
+import java.util.List;
+
+/**
+ * Downstream consumer of the inbound MQTT batches. Every sink bean receives every batch.
+ * A sink returns only once the batch is durable, since the stream buffer acknowledges it then.
+ */
+public interface MqttBatchSink {
+    void accept(List<Message<?>> batch) throws Exception;
+}
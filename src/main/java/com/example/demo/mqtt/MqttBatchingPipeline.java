@@ -0,0 +1,208 @@
+package com.example.demo.mqtt;
+
+import com.example.demo.metrics.DeferredTimer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves inbound MQTT messages off the Paho callback thread into a bounded queue and
+ * hands them to the output channel as {@code List<Message<?>>} batches from a worker pool.
+ */
+@Slf4j
+public class MqttBatchingPipeline implements MessageHandler, SmartLifecycle, MeterBinder {
+
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final MqttProperties.Pipeline properties;
+    private final MessageChannel outputChannel;
+    private final BlockingQueue<Message<?>> queue;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private ExecutorService executor;
+    private volatile boolean running;
+    private final DeferredTimer waitTimer = new DeferredTimer("mqtt.pipeline.wait",
+            "Time from receipt of the first message of a batch until the batch is dispatched");
+    private final DeferredTimer dispatchTimer = new DeferredTimer("mqtt.pipeline.dispatch",
+            "Time spent handing a batch to the sinks");
+
+    public MqttBatchingPipeline(MqttProperties.Pipeline properties, MessageChannel outputChannel) {
+        this.properties = properties;
+        this.outputChannel = outputChannel;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @Override
+    public void handleMessage(Message<?> message) {
+        received.increment();
+        switch (properties.getBackpressure()) {
+            case BLOCK -> {
+                try {
+                    queue.put(message);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MessageDeliveryException(message, "Interrupted while waiting for pipeline queue space");
+                }
+            }
+            case DROP_OLDEST -> {
+                while (!queue.offer(message)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+            }
+            case FAIL -> {
+                if (!queue.offer(message)) {
+                    rejected.increment();
+                    throw new MessageDeliveryException(message, "MQTT pipeline queue is full");
+                }
+            }
+        }
+    }
+
+    private void work() {
+        int batchSize = properties.getBatchSize();
+        long windowNanos = properties.getBatchWindow().toNanos();
+        while (running || !queue.isEmpty()) {
+            try {
+                Message<?> first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<Message<?>> batch = new ArrayList<>(batchSize);
+                batch.add(first);
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    Message<?> next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void dispatch(List<Message<?>> batch) {
+        Long timestamp = batch.get(0).getHeaders().getTimestamp();
+        if (timestamp != null) {
+            waitTimer.record(System.currentTimeMillis() - timestamp, TimeUnit.MILLISECONDS);
+        }
+        long start = System.nanoTime();
+        try {
+            outputChannel.send(MessageBuilder.withPayload(batch).build());
+        } catch (RuntimeException e) {
+            log.error("Failed to dispatch MQTT batch of {} messages", batch.size(), e);
+        }
+        dispatchTimer.recordSince(start);
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        int workers = properties.getWorkers();
+        executor = Executors.newFixedThreadPool(workers, new CustomizableThreadFactory("mqtt-pipeline-"));
+        for (int i = 0; i < workers; i++) {
+            executor.execute(this::work);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("MQTT pipeline stopped with {} undelivered messages", queue.size());
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts before and stops after the inbound adapters so queued messages are drained.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 4;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getReceivedCount() {
+        return received.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("mqtt.pipeline.queue.depth", this, MqttBatchingPipeline::getQueueDepth)
+                .description("Messages waiting for a pipeline worker")
+                .register(registry);
+        FunctionCounter.builder("mqtt.inbound.messages", this, MqttBatchingPipeline::getReceivedCount)
+                .description("Messages received from the broker")
+                .register(registry);
+        FunctionCounter.builder("mqtt.pipeline.dropped", this, MqttBatchingPipeline::getDroppedCount)
+                .description("Messages evicted from a full queue")
+                .register(registry);
+        FunctionCounter.builder("mqtt.pipeline.rejected", this, MqttBatchingPipeline::getRejectedCount)
+                .description("Messages rejected by a full queue")
+                .register(registry);
+        waitTimer.bindTo(registry);
+        dispatchTimer.bindTo(registry);
+    }
+}
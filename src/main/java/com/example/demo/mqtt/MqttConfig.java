@@ -1,17 +1,24 @@
 package com.example.demo.mqtt;
 
+import com.example.demo.mqtt.codec.PayloadCodecRegistry;
+import com.example.demo.startup.WarmupTask;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.integration.annotation.ServiceActivator;
 import org.springframework.integration.channel.DirectChannel;
-import org.springframework.integration.core.MessageProducer;
-import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
-import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.integration.channel.PublishSubscribeChannel;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
+import org.springframework.util.StringUtils;
 
-import java.util.UUID;
+import java.util.List;
 
 @Slf4j
 @Configuration
@@ -21,27 +28,91 @@ public class MqttConfig {
         return new DirectChannel();
     }
 
+    @Bean
+    public MessageChannel mqttBatchChannel() {
+        return new PublishSubscribeChannel();
+    }
+
     @Bean
     @ServiceActivator(inputChannel = "mqttInputChannel")
-    public MessageHandler handler() {
-        return message -> log.info("{}", message.getPayload());
+    public MqttBatchingPipeline mqttBatchingPipeline(MqttProperties mqttProperties) {
+        return new MqttBatchingPipeline(mqttProperties.getPipeline(), mqttBatchChannel());
+    }
+
+    @Bean
+    public MqttSinkDispatcher mqttSinkDispatcher(ObjectProvider<MqttBatchSink> mqttBatchSinks) {
+        return new MqttSinkDispatcher(mqttBatchSinks.orderedStream().toList());
+    }
+
+    @Bean
+    @ServiceActivator(inputChannel = "mqttBatchChannel")
+    @SuppressWarnings("unchecked")
+    public MessageHandler handler(PayloadCodecRegistry payloadCodecRegistry, MqttSinkDispatcher mqttSinkDispatcher,
+                                  ObjectProvider<MqttStreamBuffer> mqttStreamBuffer, ObjectProvider<MqttDeduplicator> mqttDeduplicator) {
+        MqttStreamBuffer streamBuffer = mqttStreamBuffer.getIfAvailable();
+        MqttDeduplicator deduplicator = mqttDeduplicator.getIfAvailable();
+        return message -> {
+            List<Message<?>> batch = (List<Message<?>>) message.getPayload();
+            if (deduplicator != null) {
+                batch = deduplicator.filter(batch);
+                if (batch.isEmpty()) {
+                    return;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                batch.forEach(m -> {
+                    Object payload = payloadCodecRegistry.decode(m);
+                    log.debug("{}", payload);
+                    payloadCodecRegistry.release(m, payload);
+                });
+            }
+            if (streamBuffer != null) {
+                try {
+                    streamBuffer.append(batch);
+                    return;
+                } catch (RuntimeException e) {
+                    log.error("Failed to append {} messages to the MQTT stream, dispatching directly", batch.size(), e);
+                }
+            }
+            mqttSinkDispatcher.dispatch(batch);
+        };
     }
 
     @Bean
-    public MessageProducer inboundChannel(MqttProperties mqttProperties) {
+    public MqttPahoClientFactory mqttClientFactory(MqttProperties mqttProperties) {
+        return clientFactory(connectOptions(mqttProperties));
+    }
+
+    /**
+     * Connect options shared by the inbound and outbound clients.
+     */
+    static MqttConnectOptions connectOptions(MqttProperties mqttProperties) {
+        MqttConnectOptions connectOptions = new MqttConnectOptions();
+        connectOptions.setCleanSession(true);
+        if (StringUtils.hasText(mqttProperties.getUsername())) {
+            connectOptions.setUserName(mqttProperties.getUsername());
+        }
+        if (StringUtils.hasText(mqttProperties.getPassword())) {
+            connectOptions.setPassword(mqttProperties.getPassword().toCharArray());
+        }
+        return connectOptions;
+    }
 
-        String host = mqttProperties.getHost();
-        Integer port = mqttProperties.getPort();
+    static DefaultMqttPahoClientFactory clientFactory(MqttConnectOptions connectOptions) {
+        // [NOTE] No shared persistence instance: Paho then creates a MemoryPersistence per client.
+        DefaultMqttPahoClientFactory clientFactory = new DefaultMqttPahoClientFactory();
+        clientFactory.setConnectionOptions(connectOptions);
+        return clientFactory;
+    }
 
-        String topic        = "test";
-        String broker       = "tcp://%s:%s".formatted(host, port);
+    @Bean
+    public MqttInboundRegistrar inboundChannel(MqttProperties mqttProperties, MqttPahoClientFactory mqttClientFactory,
+                                               IntegrationFlowContext integrationFlowContext) {
+        return new MqttInboundRegistrar(mqttProperties, mqttClientFactory, mqttInputChannel(), integrationFlowContext);
+    }
 
-        MqttPahoMessageDrivenChannelAdapter adapter =
-                new MqttPahoMessageDrivenChannelAdapter(broker, UUID.randomUUID().toString(), topic);
-        adapter.setCompletionTimeout(5000);
-        adapter.setConverter(new DefaultPahoMessageConverter(mqttProperties.getQos(), false));
-        adapter.setQos(mqttProperties.getQos());
-        adapter.setOutputChannel(mqttInputChannel());
-        return adapter;
+    @Bean
+    public WarmupTask mqttInboundWarmup(MqttInboundRegistrar inboundChannel) {
+        return inboundChannel::start;
     }
 }
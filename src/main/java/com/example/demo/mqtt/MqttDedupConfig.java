@@ -0,0 +1,17 @@
+package com.example.demo.mqtt;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.mqtt.dedup", name = "enabled", havingValue = "true")
+public class MqttDedupConfig {
+    @Bean
+    public MqttDeduplicator mqttDeduplicator(MqttProperties mqttProperties, ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        MqttProperties.Dedup dedup = mqttProperties.getDedup();
+        return new MqttDeduplicator(dedup, dedup.isShared() ? redisConnectionFactory.getObject() : null);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.demo.mqtt;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drops messages whose key was already seen within the window, before a batch reaches the stream buffer
+ * or the sinks. Keys are a hash of the topic and the {@code key-header}, or the payload when the message has no such header.
+ * <p>
+ * Every key is checked against a local {@link RotatingBloomFilter}. When the window is shared, keys the
+ * local filter has not seen are then claimed in Redis with pipelined {@code SET NX PX}, which catches
+ * duplicates delivered to another node. Redis errors let the batch through unfiltered by the shared window.
+ * A false positive drops a unique message, at the rate bounded by {@code false-positive-probability}.
+ */
+@Slf4j
+public class MqttDeduplicator implements MeterBinder {
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long M = 0x9e3779b97f4a7c15L;
+    private static final byte[] SEEN = {'1'};
+
+    private final MqttProperties.Dedup properties;
+    private final RotatingBloomFilter filter;
+    private final RedisConnectionFactory connectionFactory;
+    private final LongAdder unique = new LongAdder();
+    private final LongAdder localDuplicates = new LongAdder();
+    private final LongAdder sharedDuplicates = new LongAdder();
+    private final LongAdder sharedErrors = new LongAdder();
+
+    /**
+     * @param connectionFactory Redis holding the shared window, or {@code null} to deduplicate locally only
+     */
+    public MqttDeduplicator(MqttProperties.Dedup properties, RedisConnectionFactory connectionFactory) {
+        this.properties = properties;
+        this.filter = new RotatingBloomFilter(properties.getWindow(), properties.getSegments(),
+                properties.getExpectedMessages(), properties.getFalsePositiveProbability());
+        this.connectionFactory = connectionFactory;
+        log.info("MQTT dedup window of {} over {} segments of {} bits with {} hashes{}", properties.getWindow(),
+                properties.getSegments() + 1, filter.getBitsPerSegment(), filter.getHashes(),
+                connectionFactory == null ? "" : ", shared through Redis");
+    }
+
+    /**
+     * @return the messages not seen before, the batch itself when it has no duplicate
+     */
+    public List<Message<?>> filter(List<Message<?>> batch) {
+        List<Message<?>> candidates = null;
+        long[] hashes = new long[batch.size()];
+        int count = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            Message<?> message = batch.get(i);
+            long hash = hash(message);
+            if (filter.add(hash)) {
+                hashes[count++] = hash;
+                if (candidates != null) {
+                    candidates.add(message);
+                }
+            } else {
+                localDuplicates.increment();
+                if (candidates == null) {
+                    candidates = new ArrayList<>(batch.subList(0, i));
+                }
+            }
+        }
+        List<Message<?>> accepted = candidates == null ? batch : candidates;
+        if (connectionFactory != null && !accepted.isEmpty()) {
+            accepted = claimShared(accepted, hashes);
+        }
+        unique.add(accepted.size());
+        return accepted;
+    }
+
+    private List<Message<?>> claimShared(List<Message<?>> messages, long[] hashes) {
+        Expiration expiration = Expiration.milliseconds(properties.getWindow().toMillis());
+        List<Object> results;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (int i = 0; i < messages.size(); i++) {
+                    byte[] key = (properties.getSharedKeyPrefix() + Long.toHexString(hashes[i])).getBytes(StandardCharsets.UTF_8);
+                    connection.stringCommands().set(key, SEEN, expiration, RedisStringCommands.SetOption.ifAbsent());
+                }
+            } finally {
+                results = connection.closePipeline();
+            }
+        } catch (DataAccessException e) {
+            sharedErrors.increment();
+            log.warn("Shared MQTT dedup window unavailable, passing {} messages: {}", messages.size(), e.getMessage());
+            return messages;
+        }
+        List<Message<?>> accepted = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            // [NOTE] SET NX answers null or false when the key exists, depending on the driver.
+            if (Boolean.TRUE.equals(results.get(i))) {
+                accepted.add(messages.get(i));
+            } else {
+                sharedDuplicates.increment();
+            }
+        }
+        return accepted;
+    }
+
+    long hash(Message<?> message) {
+        String topic = message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class);
+        long seed = topic == null ? 0 : topic.hashCode();
+        Object key = properties.getKeyHeader() == null ? null : message.getHeaders().get(properties.getKeyHeader());
+        if (key == null) {
+            key = message.getPayload();
+        }
+        if (key instanceof byte[] bytes) {
+            return hash(bytes, seed);
+        }
+        return hash(String.valueOf(key).getBytes(StandardCharsets.UTF_8), seed);
+    }
+
+    /**
+     * 64-bit hash mixing 8-byte words with the murmur3 finalizer.
+     */
+    static long hash(byte[] bytes, long seed) {
+        long h = mix(seed) ^ (bytes.length * M);
+        int i = 0;
+        for (; i + Long.BYTES <= bytes.length; i += Long.BYTES) {
+            h = (h ^ mix((long) LONGS.get(bytes, i))) * M;
+        }
+        long tail = 0;
+        for (int j = bytes.length - 1; j >= i; j--) {
+            tail = (tail << 8) | (bytes[j] & 0xff);
+        }
+        return mix((h ^ mix(tail)) * M);
+    }
+
+    private static long mix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    public long getUniqueCount() {
+        return unique.sum();
+    }
+
+    public long getDuplicateCount() {
+        return localDuplicates.sum() + sharedDuplicates.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("mqtt.dedup.unique", unique, LongAdder::sum)
+                .description("Messages passed on to the sinks")
+                .register(registry);
+        FunctionCounter.builder("mqtt.dedup.duplicates", localDuplicates, LongAdder::sum)
+                .description("Messages dropped as already seen within the window")
+                .tag("window", "local")
+                .register(registry);
+        FunctionCounter.builder("mqtt.dedup.duplicates", sharedDuplicates, LongAdder::sum)
+                .description("Messages dropped as already seen within the window")
+                .tag("window", "shared")
+                .register(registry);
+        FunctionCounter.builder("mqtt.dedup.shared.errors", sharedErrors, LongAdder::sum)
+                .description("Batches passed without the shared window because Redis failed")
+                .register(registry);
+        Gauge.builder("mqtt.dedup.fpp", filter, RotatingBloomFilter::expectedFpp)
+                .description("Estimated false positive probability of the local window")
+                .register(registry);
+        Gauge.builder("mqtt.dedup.fpp.budget", properties, MqttProperties.Dedup::getFalsePositiveProbability)
+                .description("Configured false positive probability at the expected message rate")
+                .register(registry);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.mqtt;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.dsl.IntegrationFlow;
+import org.springframework.integration.dsl.IntegrationFlows;
+import org.springframework.integration.dsl.context.IntegrationFlowContext;
+import org.springframework.integration.mqtt.core.MqttPahoClientFactory;
+import org.springframework.integration.mqtt.inbound.MqttPahoMessageDrivenChannelAdapter;
+import org.springframework.integration.mqtt.support.DefaultPahoMessageConverter;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Registers {@link MqttProperties#getConnections()} inbound adapters, all feeding the same channel.
+ * Each message carries the index of the connection it arrived on in {@link #CONNECTION_HEADER}.
+ */
+@Slf4j
+public class MqttInboundRegistrar implements SmartLifecycle {
+
+    public static final String CONNECTION_HEADER = "mqtt_connection";
+
+    private static final String SHARED_SUBSCRIPTION_PREFIX = "$share/%s/%s";
+
+    private final MqttProperties mqttProperties;
+    private final MqttPahoClientFactory clientFactory;
+    private final MessageChannel outputChannel;
+    private final IntegrationFlowContext flowContext;
+    private final List<IntegrationFlowContext.IntegrationFlowRegistration> registrations = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public MqttInboundRegistrar(MqttProperties mqttProperties, MqttPahoClientFactory clientFactory,
+                                MessageChannel outputChannel, IntegrationFlowContext flowContext) {
+        this.mqttProperties = mqttProperties;
+        this.clientFactory = clientFactory;
+        this.outputChannel = outputChannel;
+        this.flowContext = flowContext;
+    }
+
+    public String[] getTopics() {
+        String group = mqttProperties.getSharedGroup();
+        return mqttProperties.getTopics().stream()
+                .map(topic -> StringUtils.hasText(group) ? SHARED_SUBSCRIPTION_PREFIX.formatted(group, topic) : topic)
+                .toArray(String[]::new);
+    }
+
+    private MqttPahoMessageDrivenChannelAdapter createAdapter(String broker, String clientId, String[] topics) {
+        MqttPahoMessageDrivenChannelAdapter adapter =
+                new MqttPahoMessageDrivenChannelAdapter(broker, clientId, clientFactory, topics);
+        adapter.setCompletionTimeout(5000);
+        DefaultPahoMessageConverter converter = new DefaultPahoMessageConverter(mqttProperties.getQos(), false);
+        converter.setPayloadAsBytes(true);
+        adapter.setConverter(converter);
+        adapter.setQos(mqttProperties.getQos());
+        return adapter;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        String broker = "tcp://%s:%s".formatted(mqttProperties.getHost(), mqttProperties.getPort());
+        String clientId = StringUtils.hasText(mqttProperties.getClientId())
+                ? mqttProperties.getClientId() : UUID.randomUUID().toString();
+        String[] topics = getTopics();
+
+        for (int i = 0; i < mqttProperties.getConnections(); i++) {
+            int connection = i;
+            IntegrationFlow flow = IntegrationFlows.from(createAdapter(broker, clientId + "-" + i, topics))
+                    .enrichHeaders(h -> h.header(CONNECTION_HEADER, connection))
+                    .channel(outputChannel)
+                    .get();
+            registrations.add(flowContext.registration(flow).id("mqttInbound-" + i).register());
+        }
+        log.info("Registered {} MQTT inbound connections to {} for {}", registrations.size(), broker, String.join(",", topics));
+        running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        registrations.forEach(registration -> flowContext.remove(registration.getId()));
+        registrations.clear();
+        running = false;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return mqttProperties.isAutoStartup();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 2;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.demo.mqtt;
+
+import com.example.demo.startup.WarmupTask;
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.annotation.ServiceActivator;
+import org.springframework.integration.channel.DirectChannel;
+import org.springframework.messaging.MessageChannel;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.mqtt.outbound", name = "enabled", havingValue = "true")
+public class MqttOutboundConfig {
+    @Bean
+    public MessageChannel mqttOutboundChannel() {
+        return new DirectChannel();
+    }
+
+    @Bean
+    @ServiceActivator(inputChannel = "mqttOutboundChannel")
+    public MqttAsyncPublisher mqttAsyncPublisher(MqttProperties mqttProperties) {
+        MqttConnectOptions connectOptions = MqttConfig.connectOptions(mqttProperties);
+        connectOptions.setAutomaticReconnect(true);
+        connectOptions.setMaxInflight(mqttProperties.getOutbound().getMaxInflight());
+        return new MqttAsyncPublisher(mqttProperties, MqttConfig.clientFactory(connectOptions));
+    }
+
+    @Bean
+    public WarmupTask mqttOutboundWarmup(MqttAsyncPublisher mqttAsyncPublisher) {
+        return mqttAsyncPublisher::start;
+    }
+}
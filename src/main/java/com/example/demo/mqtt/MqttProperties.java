@@ -1,10 +1,17 @@
 package com.example.demo.mqtt;
 
+import com.example.demo.mqtt.codec.RawPayloadCodec;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @ConfigurationProperties("spring.mqtt")
 @Component
 @Getter
@@ -15,4 +22,176 @@ public class MqttProperties {
     private String host;
     private Integer port;
     private Integer qos = 1;
+    /**
+     * Topic filters subscribed by every inbound connection.
+     */
+    private List<String> topics = new ArrayList<>(List.of("test"));
+    /**
+     * Number of inbound client connections opened by this node.
+     */
+    private int connections = 1;
+    /**
+     * Shared subscription group. When set, topics are subscribed as {@code $share/<group>/<topic>}
+     * so the broker splits the stream across every connection of every node in the group.
+     */
+    private String sharedGroup;
+    /**
+     * Client id prefix. A random id is used when not set.
+     */
+    private String clientId;
+    /**
+     * Payload codec per topic filter, evaluated in order, e.g. {@code "[sensors/+/telemetry]": binary}.
+     */
+    private Map<String, String> codecs = new LinkedHashMap<>();
+    /**
+     * Payload codec for topics not matched by {@link #codecs}.
+     */
+    private String defaultCodec = RawPayloadCodec.NAME;
+    /**
+     * Maximum number of idle binary records kept for reuse.
+     */
+    private int recordPoolSize = 4096;
+    /**
+     * Connect the inbound and outbound clients while the context starts. When false they are
+     * connected by the warm-up once the application is ready.
+     */
+    private boolean autoStartup = true;
+    private Pipeline pipeline = new Pipeline();
+    private Outbound outbound = new Outbound();
+    private Stream stream = new Stream();
+    private Dedup dedup = new Dedup();
+
+    @Getter
+    @Setter
+    public static class Pipeline {
+        /**
+         * Capacity of the hand-off queue between the Paho callback thread and the workers.
+         */
+        private int queueCapacity = 10000;
+        private int workers = 2;
+        /**
+         * Maximum number of messages in a batch.
+         */
+        private int batchSize = 500;
+        /**
+         * Maximum time a worker waits to fill a batch once the first message arrived.
+         */
+        private Duration batchWindow = Duration.ofMillis(20);
+        private Backpressure backpressure = Backpressure.BLOCK;
+        private Duration shutdownTimeout = Duration.ofSeconds(5);
+    }
+
+    @Getter
+    @Setter
+    public static class Outbound {
+        private boolean enabled;
+        /**
+         * Number of async client connections publishes are spread over.
+         */
+        private int connections = 2;
+        /**
+         * Maximum number of unacknowledged publishes per connection.
+         */
+        private int maxInflight = 1000;
+        /**
+         * Maximum time a publish waits for a free in-flight slot.
+         */
+        private Duration publishTimeout = Duration.ofSeconds(10);
+        private int maxRetries = 3;
+        private Duration retryInterval = Duration.ofSeconds(1);
+        /**
+         * Topic used when an outbound message has no {@code mqtt_topic} header.
+         */
+        private String defaultTopic;
+    }
+
+    @Getter
+    @Setter
+    public static class Stream {
+        /**
+         * Append inbound batches to a Redis Stream and feed the sinks from consumer group workers instead of directly.
+         */
+        private boolean enabled;
+        private String key = "mqtt:inbound";
+        private String group = "sinks";
+        /**
+         * Consumer name prefix. A random name is used when not set.
+         */
+        private String consumer;
+        /**
+         * Number of consumer workers on this node.
+         */
+        private int consumers = 2;
+        /**
+         * Maximum number of entries read per {@code XREADGROUP}.
+         */
+        private int batchSize = 500;
+        private Duration block = Duration.ofSeconds(1);
+        /**
+         * Approximate maximum stream length kept by {@code XADD}. The stream is otherwise trimmed by what the
+         * groups consumed, so this only drops unconsumed entries when the consumers fall this far behind.
+         */
+        private long maxLength = 1_000_000;
+        /**
+         * Time a delivered entry stays unacknowledged before another consumer claims it.
+         */
+        private Duration claimIdle = Duration.ofMinutes(1);
+        private Duration claimInterval = Duration.ofSeconds(30);
+        /**
+         * Number of deliveries after which an entry is moved to {@code <key>:dead}.
+         */
+        private int maxDeliveries = 10;
+    }
+
+    @Getter
+    @Setter
+    public static class Dedup {
+        /**
+         * Drop messages already received within the window, e.g. QoS 1 redeliveries after a reconnect.
+         */
+        private boolean enabled;
+        /**
+         * Header carrying a unique id set by the publisher. Messages are keyed by a hash of topic and payload
+         * when not set or when a message lacks the header. The MQTT packet id is reused by the client and does
+         * not identify a message.
+         */
+        private String keyHeader;
+        /**
+         * Minimum time a key is remembered from its first receipt. Repeats within the window do not extend it.
+         */
+        private Duration window = Duration.ofMinutes(5);
+        /**
+         * Number of segments the window rotates through. More segments release memory sooner but cost more lookups.
+         */
+        private int segments = 5;
+        /**
+         * Messages expected per window, used to size the filter.
+         */
+        private long expectedMessages = 1_000_000;
+        /**
+         * Share of unique messages that may be dropped as false positives while the filter holds
+         * {@code expected-messages}.
+         */
+        private double falsePositiveProbability = 0.0001;
+        /**
+         * Also check keys against a window shared through Redis with {@code SET NX PX}, for a stream consumed by several nodes.
+         */
+        private boolean shared;
+        private String sharedKeyPrefix = "mqtt:dedup:";
+    }
+
+    public enum Backpressure {
+        /**
+         * Block the Paho callback thread until the queue has space.
+         */
+        BLOCK,
+        /**
+         * Evict the oldest queued message to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * Reject the message, which makes Paho drop the connection and redeliver.
+         */
+        FAIL
+    }
 }
@@ -0,0 +1,81 @@
+package com.example.demo.mqtt;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands a batch to every {@link MqttBatchSink}. A failing sink does not stop the others.
+ */
+@Slf4j
+public class MqttSinkDispatcher implements MeterBinder {
+
+    private final List<MqttBatchSink> sinks;
+    private volatile Map<MqttBatchSink, SinkMeters> meters = Map.of();
+    private volatile DistributionSummary batchSize;
+
+    public MqttSinkDispatcher(List<MqttBatchSink> sinks) {
+        this.sinks = sinks;
+    }
+
+    /**
+     * @return whether every sink accepted the batch
+     */
+    public boolean dispatch(List<Message<?>> batch) {
+        DistributionSummary batchSize = this.batchSize;
+        if (batchSize != null) {
+            batchSize.record(batch.size());
+        }
+        boolean accepted = true;
+        for (MqttBatchSink sink : sinks) {
+            SinkMeters sinkMeters = meters.get(sink);
+            long start = System.nanoTime();
+            try {
+                sink.accept(batch);
+            } catch (Exception e) {
+                accepted = false;
+                if (sinkMeters != null) {
+                    sinkMeters.failures.increment();
+                }
+                log.error("MQTT batch sink {} failed on {} messages", sink.getClass().getSimpleName(), batch.size(), e);
+            }
+            if (sinkMeters != null) {
+                sinkMeters.duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        return accepted;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        batchSize = DistributionSummary.builder("mqtt.batch.size")
+                .description("Messages per batch handed to the sinks")
+                .register(registry);
+        Map<MqttBatchSink, SinkMeters> meters = new IdentityHashMap<>();
+        for (MqttBatchSink sink : sinks) {
+            String name = sink.getClass().getSimpleName();
+            meters.put(sink, new SinkMeters(
+                    Timer.builder("mqtt.sink.duration")
+                            .description("Time a sink takes to accept a batch")
+                            .tag("sink", name)
+                            .register(registry),
+                    Counter.builder("mqtt.sink.failures")
+                            .description("Batches a sink failed to accept")
+                            .tag("sink", name)
+                            .register(registry)));
+        }
+        this.meters = meters;
+    }
+
+    private record SinkMeters(Timer duration, Counter failures) {
+    }
+}
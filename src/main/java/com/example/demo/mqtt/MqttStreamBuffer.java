@@ -0,0 +1,354 @@
+package com.example.demo.mqtt;
+
+import com.example.demo.metrics.DeferredTimer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamInfo;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Durable buffer between the inbound pipeline and the sinks, backed by a Redis Stream.
+ * <p>
+ * {@link #append(List)} writes a batch with pipelined {@code XADD}s. Consumer workers read with
+ * {@code XREADGROUP}, hand the entries to the sinks and {@code XACK} them once every sink accepted them.
+ * Entries left pending longer than {@code claim-idle}, by a failed batch or a crashed consumer on any node,
+ * are claimed and redelivered. Entries delivered more than {@code max-deliveries} times are moved to
+ * {@code <key>:dead}. Delivery is at-least-once, so sinks may see an entry more than once.
+ * <p>
+ * On every claim interval the stream is trimmed below the oldest entry a group still needs, that is its
+ * oldest pending entry or, without pending entries, its last delivered one. {@code max-length} only bounds
+ * the stream when the consumers fall behind: entries beyond it are dropped unconsumed.
+ */
+@Slf4j
+public class MqttStreamBuffer implements SmartLifecycle, MeterBinder {
+
+    public static final String STREAM_ID_HEADER = "mqtt_streamId";
+
+    private static final byte[] TOPIC = bytes("topic");
+    private static final byte[] QOS = bytes("qos");
+    private static final byte[] CONNECTION = bytes("connection");
+    private static final byte[] PAYLOAD = bytes("payload");
+
+    private final MqttProperties.Stream properties;
+    private final RedisConnectionFactory connectionFactory;
+    private final MqttSinkDispatcher dispatcher;
+    private final byte[] key;
+    private final byte[] deadKey;
+    private final String consumerPrefix;
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder acknowledged = new LongAdder();
+    private final LongAdder claimed = new LongAdder();
+    private final LongAdder dead = new LongAdder();
+
+    private ExecutorService executor;
+    private volatile boolean running;
+    private final DeferredTimer appendTimer = new DeferredTimer("mqtt.stream.append", "Time to append a batch to the stream");
+
+    public MqttStreamBuffer(MqttProperties.Stream properties, RedisConnectionFactory connectionFactory,
+                            MqttSinkDispatcher dispatcher) {
+        this.properties = properties;
+        this.connectionFactory = connectionFactory;
+        this.dispatcher = dispatcher;
+        this.key = bytes(properties.getKey());
+        this.deadKey = bytes(properties.getKey() + ":dead");
+        this.consumerPrefix = StringUtils.hasText(properties.getConsumer())
+                ? properties.getConsumer() : UUID.randomUUID().toString();
+    }
+
+    public void append(List<Message<?>> batch) {
+        long start = System.nanoTime();
+        RedisStreamCommands.XAddOptions options = RedisStreamCommands.XAddOptions.maxlen(properties.getMaxLength())
+                .approximateTrimming(true);
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (Message<?> message : batch) {
+                    connection.streamCommands().xAdd(StreamRecords.newRecord().in(key).ofMap(toFields(message)), options);
+                }
+            } finally {
+                connection.closePipeline();
+            }
+        }
+        appended.add(batch.size());
+        appendTimer.recordSince(start);
+    }
+
+    private static Map<byte[], byte[]> toFields(Message<?> message) {
+        Map<byte[], byte[]> fields = new HashMap<>(8);
+        String topic = message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class);
+        if (topic != null) {
+            fields.put(TOPIC, bytes(topic));
+        }
+        Integer qos = message.getHeaders().get(MqttHeaders.RECEIVED_QOS, Integer.class);
+        if (qos != null) {
+            fields.put(QOS, bytes(qos.toString()));
+        }
+        Integer connection = message.getHeaders().get(MqttInboundRegistrar.CONNECTION_HEADER, Integer.class);
+        if (connection != null) {
+            fields.put(CONNECTION, bytes(connection.toString()));
+        }
+        Object payload = message.getPayload();
+        fields.put(PAYLOAD, payload instanceof byte[] b ? b : bytes(payload.toString()));
+        return fields;
+    }
+
+    private Message<?> toMessage(ByteRecord record) {
+        Map<String, byte[]> fields = new HashMap<>(8);
+        record.getValue().forEach((field, value) -> fields.put(new String(field, StandardCharsets.UTF_8), value));
+        MessageBuilder<byte[]> builder = MessageBuilder.withPayload(fields.getOrDefault("payload", new byte[0]))
+                .setHeader(STREAM_ID_HEADER, record.getId().getValue());
+        if (fields.containsKey("topic")) {
+            builder.setHeader(MqttHeaders.RECEIVED_TOPIC, string(fields.get("topic")));
+        }
+        if (fields.containsKey("qos")) {
+            builder.setHeader(MqttHeaders.RECEIVED_QOS, Integer.valueOf(string(fields.get("qos"))));
+        }
+        if (fields.containsKey("connection")) {
+            builder.setHeader(MqttInboundRegistrar.CONNECTION_HEADER, Integer.valueOf(string(fields.get("connection"))));
+        }
+        return builder.build();
+    }
+
+    private void createGroup() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.streamCommands().xGroupCreate(key, properties.getGroup(), ReadOffset.from("0"), true);
+        } catch (DataAccessException e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private void consume(String consumerName) {
+        Consumer consumer = Consumer.from(properties.getGroup(), consumerName);
+        StreamReadOptions readOptions = StreamReadOptions.empty()
+                .count(properties.getBatchSize())
+                .block(properties.getBlock());
+        long claimIntervalNanos = properties.getClaimInterval().toNanos();
+        long nextClaim = System.nanoTime() + claimIntervalNanos;
+        while (running) {
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                while (running) {
+                    if (System.nanoTime() - nextClaim >= 0) {
+                        reclaim(connection, consumerName);
+                        trim(connection);
+                        nextClaim = System.nanoTime() + claimIntervalNanos;
+                    }
+                    List<ByteRecord> records = connection.streamCommands()
+                            .xReadGroup(consumer, readOptions, StreamOffset.create(key, ReadOffset.lastConsumed()));
+                    if (records != null && !records.isEmpty()) {
+                        process(connection, records);
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("MQTT stream consumer {} failed, retrying: {}", consumerName, e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(properties.getBlock().toMillis());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void process(RedisConnection connection, List<ByteRecord> records) {
+        List<Message<?>> batch = new ArrayList<>(records.size());
+        records.forEach(record -> batch.add(toMessage(record)));
+        if (dispatcher.dispatch(batch)) {
+            RecordId[] ids = records.stream().map(ByteRecord::getId).toArray(RecordId[]::new);
+            connection.streamCommands().xAck(key, properties.getGroup(), ids);
+            acknowledged.add(ids.length);
+        }
+    }
+
+    /**
+     * Claims entries idle for longer than {@code claim-idle}, dead-letters the ones delivered too often
+     * and processes the rest.
+     */
+    private void reclaim(RedisConnection connection, String consumerName) {
+        PendingMessages pending = connection.streamCommands()
+                .xPending(key, properties.getGroup(), Range.unbounded(), (long) properties.getBatchSize());
+        if (pending == null || pending.isEmpty()) {
+            return;
+        }
+        List<RecordId> retry = new ArrayList<>();
+        List<RecordId> exhausted = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (message.getElapsedTimeSinceLastDelivery().compareTo(properties.getClaimIdle()) < 0) {
+                continue;
+            }
+            (message.getTotalDeliveryCount() >= properties.getMaxDeliveries() ? exhausted : retry).add(message.getId());
+        }
+        if (!exhausted.isEmpty()) {
+            List<ByteRecord> records = claim(connection, consumerName, exhausted);
+            for (ByteRecord record : records) {
+                connection.streamCommands().xAdd(StreamRecords.newRecord().in(deadKey).ofMap(record.getValue()));
+            }
+            // [NOTE] Only the claimed entries are acknowledged, another consumer may have claimed the rest meanwhile.
+            if (!records.isEmpty()) {
+                RecordId[] ids = records.stream().map(ByteRecord::getId).toArray(RecordId[]::new);
+                connection.streamCommands().xAck(key, properties.getGroup(), ids);
+            }
+            dead.add(records.size());
+            log.warn("Moved {} MQTT stream entries to {} after {} deliveries", records.size(),
+                    string(deadKey), properties.getMaxDeliveries());
+        }
+        if (!retry.isEmpty()) {
+            List<ByteRecord> records = claim(connection, consumerName, retry);
+            claimed.add(records.size());
+            if (!records.isEmpty()) {
+                process(connection, records);
+            }
+        }
+    }
+
+    /**
+     * Trims entries below the oldest one any group still needs with {@code XTRIM MINID ~}.
+     */
+    private void trim(RedisConnection connection) {
+        RecordId floor = null;
+        for (StreamInfo.XInfoGroup group : connection.streamCommands().xInfoGroups(key).stream().toList()) {
+            PendingMessagesSummary pending = connection.streamCommands().xPending(key, group.groupName());
+            RecordId needed = RecordId.of(pending != null && pending.getTotalPendingMessages() > 0
+                    ? pending.minMessageId() : group.lastDeliveredId());
+            if (floor == null || compare(needed, floor) < 0) {
+                floor = needed;
+            }
+        }
+        if (floor != null && floor.getTimestamp() > 0) {
+            connection.execute("XTRIM", key, bytes("MINID"), bytes("~"), bytes(floor.getValue()));
+        }
+    }
+
+    private static int compare(RecordId a, RecordId b) {
+        int byTimestamp = Long.compare(a.getTimestamp(), b.getTimestamp());
+        return byTimestamp != 0 ? byTimestamp : Long.compare(a.getSequence(), b.getSequence());
+    }
+
+    private List<ByteRecord> claim(RedisConnection connection, String consumerName, List<RecordId> ids) {
+        return connection.streamCommands().xClaim(key, properties.getGroup(), consumerName,
+                RedisStreamCommands.XClaimOptions.minIdle(properties.getClaimIdle()).ids(ids));
+    }
+
+    @Override
+    public void start() {
+        if (running) {
+            return;
+        }
+        createGroup();
+        running = true;
+        int consumers = properties.getConsumers();
+        executor = Executors.newFixedThreadPool(consumers, new CustomizableThreadFactory("mqtt-stream-"));
+        for (int i = 0; i < consumers; i++) {
+            String consumerName = consumerPrefix + "-" + i;
+            executor.execute(() -> consume(consumerName));
+        }
+        log.info("Consuming MQTT stream {} as group {} with {} consumers", properties.getKey(), properties.getGroup(), consumers);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            // [NOTE] Entries of an interrupted batch stay pending and are claimed by another consumer.
+            if (!executor.awaitTermination(properties.getBlock().toMillis() * 2, TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Starts after the sinks and stops before them, but after the {@link MqttBatchingPipeline} drained its
+     * queue into the stream.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 4 - 1;
+    }
+
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    public long getAcknowledgedCount() {
+        return acknowledged.sum();
+    }
+
+    public long getClaimedCount() {
+        return claimed.sum();
+    }
+
+    public long getDeadCount() {
+        return dead.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        appendTimer.bindTo(registry);
+        FunctionCounter.builder("mqtt.stream.entries", this, MqttStreamBuffer::getAppendedCount)
+                .tag("state", "appended").register(registry);
+        FunctionCounter.builder("mqtt.stream.entries", this, MqttStreamBuffer::getAcknowledgedCount)
+                .tag("state", "acknowledged").register(registry);
+        FunctionCounter.builder("mqtt.stream.entries", this, MqttStreamBuffer::getClaimedCount)
+                .tag("state", "claimed").register(registry);
+        FunctionCounter.builder("mqtt.stream.entries", this, MqttStreamBuffer::getDeadCount)
+                .tag("state", "dead").register(registry);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
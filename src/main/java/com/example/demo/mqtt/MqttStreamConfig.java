@@ -0,0 +1,16 @@
+package com.example.demo.mqtt;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.mqtt.stream", name = "enabled", havingValue = "true")
+public class MqttStreamConfig {
+    @Bean
+    public MqttStreamBuffer mqttStreamBuffer(MqttProperties mqttProperties, RedisConnectionFactory redisConnectionFactory,
+                                             MqttSinkDispatcher mqttSinkDispatcher) {
+        return new MqttStreamBuffer(mqttProperties.getStream(), redisConnectionFactory, mqttSinkDispatcher);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.demo.mqtt;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-windowed Bloom filter over 64-bit hashes. The window is split into {@code segments} spans. Keys are
+ * added to the segment of the current span and looked up in it and in the segments of the previous
+ * {@code segments} spans, so a key is remembered for at least the window and at most one span longer, counted
+ * from when it was first added.
+ * <p>
+ * Bits are set with CAS and a new span replaces the oldest segment by swapping in a fresh one, so neither
+ * lookups nor rotation take a lock. Memory is bounded by {@code segments + 1} segments.
+ */
+public class RotatingBloomFilter {
+
+    private final long span;
+    private final int lookback;
+    private final int bits;
+    private final int hashes;
+    private final LongSupplier clock;
+    private final AtomicReferenceArray<Segment> ring;
+
+    /**
+     * @param expectedInsertions keys expected per window
+     * @param fpp                false positive probability of a lookup while the window holds the expected keys
+     */
+    public RotatingBloomFilter(Duration window, int segments, long expectedInsertions, double fpp) {
+        this(window, segments, expectedInsertions, fpp, System::currentTimeMillis);
+    }
+
+    RotatingBloomFilter(Duration window, int segments, long expectedInsertions, double fpp, LongSupplier clock) {
+        if (segments < 1 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter settings: segments=%d, fpp=%s".formatted(segments, fpp));
+        }
+        this.span = Math.max(1, window.toMillis() / segments);
+        this.lookback = segments;
+        // [NOTE] A lookup probes every live segment, so each gets an equal share of the false positive budget.
+        double segmentFpp = fpp / (segments + 1);
+        long segmentInsertions = Math.max(1, (expectedInsertions + segments - 1) / segments);
+        long optimalBits = (long) Math.ceil(-segmentInsertions * Math.log(segmentFpp) / (Math.log(2) * Math.log(2)));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, (optimalBits + 63) / 64 * 64));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / segmentInsertions * Math.log(2)));
+        this.clock = clock;
+        this.ring = new AtomicReferenceArray<>(segments + 1);
+    }
+
+    /**
+     * Adds the hash unless it may have been added within the window.
+     *
+     * @return whether the hash was not seen before
+     */
+    public boolean add(long hash) {
+        long epoch = clock.getAsLong() / span;
+        for (int i = 1; i <= lookback; i++) {
+            Segment older = ring.get(slot(epoch - i));
+            if (older != null && older.epoch == epoch - i && older.mightContain(hash)) {
+                // [NOTE] A duplicate is not added again, so a key that keeps repeating still expires after the window.
+                return false;
+            }
+        }
+        return segment(epoch).put(hash);
+    }
+
+    /**
+     * @return whether the hash may have been added within the window
+     */
+    public boolean mightContain(long hash) {
+        long epoch = clock.getAsLong() / span;
+        for (int i = 0; i <= lookback; i++) {
+            Segment segment = ring.get(slot(epoch - i));
+            if (segment != null && segment.epoch == epoch - i && segment.mightContain(hash)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Segment segment(long epoch) {
+        int slot = slot(epoch);
+        while (true) {
+            Segment segment = ring.get(slot);
+            if (segment != null && segment.epoch >= epoch) {
+                return segment;
+            }
+            Segment fresh = new Segment(epoch, bits, hashes);
+            if (ring.compareAndSet(slot, segment, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int slot(long epoch) {
+        return (int) Math.floorMod(epoch, (long) ring.length());
+    }
+
+    /**
+     * @return estimated false positive probability of a lookup, from the bits set in the live segments
+     */
+    public double expectedFpp() {
+        long epoch = clock.getAsLong() / span;
+        double negative = 1;
+        for (int i = 0; i <= lookback; i++) {
+            Segment segment = ring.get(slot(epoch - i));
+            if (segment != null && segment.epoch == epoch - i) {
+                negative *= 1 - Math.pow((double) segment.bitCount.sum() / bits, hashes);
+            }
+        }
+        return 1 - negative;
+    }
+
+    public int getBitsPerSegment() {
+        return bits;
+    }
+
+    public int getHashes() {
+        return hashes;
+    }
+
+    private static final class Segment {
+        final long epoch;
+        final int hashes;
+        final int bits;
+        final AtomicLongArray words;
+        final LongAdder bitCount = new LongAdder();
+
+        Segment(long epoch, int bits, int hashes) {
+            this.epoch = epoch;
+            this.bits = bits;
+            this.hashes = hashes;
+            this.words = new AtomicLongArray(bits / 64);
+        }
+
+        boolean mightContain(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                int index = index(h1 + i * h2);
+                if ((words.get(index >>> 6) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return whether any bit was set by this call
+         */
+        boolean put(long hash) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            boolean changed = false;
+            for (int i = 1; i <= hashes; i++) {
+                int index = index(h1 + i * h2);
+                int word = index >>> 6;
+                long mask = 1L << index;
+                long current = words.get(word);
+                while ((current & mask) == 0) {
+                    if (words.compareAndSet(word, current, current | mask)) {
+                        bitCount.increment();
+                        changed = true;
+                        break;
+                    }
+                    current = words.get(word);
+                }
+            }
+            return changed;
+        }
+
+        private int index(int combined) {
+            return (combined < 0 ? ~combined : combined) % bits;
+        }
+    }
+}
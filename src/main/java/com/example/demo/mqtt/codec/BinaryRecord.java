@@ -0,0 +1,119 @@
+package com.example.demo.mqtt.codec;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+
+/**
+ * Mutable, reusable record decoded by {@link BinaryRecordCodec}. Every field value is kept as raw
+ * {@code long} bits, so reading a record never boxes.
+ */
+public final class BinaryRecord {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    @Getter
+    @Setter
+    private int schemaId;
+    /**
+     * Event time in nanoseconds since the epoch.
+     */
+    @Getter
+    @Setter
+    private long timestamp;
+    @Getter
+    private int fieldCount;
+    private FieldType[] types = new FieldType[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY];
+
+    public FieldType getType(int index) {
+        checkIndex(index);
+        return types[index];
+    }
+
+    public long getLong(int index) {
+        checkIndex(index);
+        return types[index] == FieldType.DOUBLE ? (long) Double.longBitsToDouble(values[index]) : values[index];
+    }
+
+    public double getDouble(int index) {
+        checkIndex(index);
+        return types[index] == FieldType.DOUBLE ? Double.longBitsToDouble(values[index]) : values[index];
+    }
+
+    public int getInt(int index) {
+        return (int) getLong(index);
+    }
+
+    public boolean getBoolean(int index) {
+        return getLong(index) != 0;
+    }
+
+    long getBits(int index) {
+        return values[index];
+    }
+
+    public BinaryRecord addLong(long value) {
+        return add(FieldType.LONG, value);
+    }
+
+    public BinaryRecord addDouble(double value) {
+        return add(FieldType.DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    public BinaryRecord addInt(int value) {
+        return add(FieldType.INT, value);
+    }
+
+    public BinaryRecord addBoolean(boolean value) {
+        return add(FieldType.BOOLEAN, value ? 1 : 0);
+    }
+
+    BinaryRecord add(FieldType type, long bits) {
+        if (fieldCount == values.length) {
+            types = Arrays.copyOf(types, fieldCount * 2);
+            values = Arrays.copyOf(values, fieldCount * 2);
+        }
+        types[fieldCount] = type;
+        values[fieldCount] = bits;
+        fieldCount++;
+        return this;
+    }
+
+    public void clear() {
+        schemaId = 0;
+        timestamp = 0;
+        fieldCount = 0;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Field index %d out of %d".formatted(index, fieldCount));
+        }
+    }
+
+    public enum FieldType {
+        LONG(1, Long.BYTES),
+        DOUBLE(2, Double.BYTES),
+        INT(3, Integer.BYTES),
+        BOOLEAN(4, 1);
+
+        private static final FieldType[] BY_CODE = {null, LONG, DOUBLE, INT, BOOLEAN};
+
+        final byte code;
+        final int size;
+
+        FieldType(int code, int size) {
+            this.code = (byte) code;
+            this.size = size;
+        }
+
+        static FieldType of(byte code) {
+            if (code <= 0 || code >= BY_CODE.length) {
+                throw new IllegalArgumentException("Unknown field type: " + code);
+            }
+            return BY_CODE[code];
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.demo.mqtt.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary record format, big-endian:
+ * <pre>
+ * 0  short magic (0x4D52)
+ * 2  byte  version
+ * 3  byte  field count
+ * 4  int   schema id
+ * 8  long  timestamp (epoch nanos)
+ * 16 fields: byte type followed by the value (8 bytes long/double, 4 bytes int, 1 byte boolean)
+ * </pre>
+ * Records are decoded into instances borrowed from a {@link BinaryRecordPool} and must be
+ * {@link #release(BinaryRecord) released} after use.
+ */
+public class BinaryRecordCodec implements PayloadCodec<BinaryRecord> {
+
+    public static final String NAME = "binary";
+    public static final short MAGIC = 0x4D52;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+
+    private final BinaryRecordPool pool;
+
+    public BinaryRecordCodec(BinaryRecordPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public BinaryRecord decode(ByteBuffer payload) {
+        int base = payload.position();
+        if (payload.remaining() < HEADER_SIZE || payload.getShort(base) != MAGIC) {
+            throw new IllegalArgumentException("Not a binary record payload");
+        }
+        if (payload.get(base + 2) != VERSION) {
+            throw new IllegalArgumentException("Unsupported binary record version: " + payload.get(base + 2));
+        }
+        int fieldCount = Byte.toUnsignedInt(payload.get(base + 3));
+
+        BinaryRecord record = pool.acquire();
+        try {
+            record.setSchemaId(payload.getInt(base + 4));
+            record.setTimestamp(payload.getLong(base + 8));
+            int offset = base + HEADER_SIZE;
+            for (int i = 0; i < fieldCount; i++) {
+                BinaryRecord.FieldType type = BinaryRecord.FieldType.of(payload.get(offset));
+                offset++;
+                long bits = switch (type) {
+                    case LONG, DOUBLE -> payload.getLong(offset);
+                    case INT -> payload.getInt(offset);
+                    case BOOLEAN -> payload.get(offset);
+                };
+                offset += type.size;
+                record.add(type, bits);
+            }
+        } catch (IndexOutOfBoundsException e) {
+            pool.release(record);
+            throw new IllegalArgumentException("Truncated binary record payload", e);
+        } catch (RuntimeException e) {
+            pool.release(record);
+            throw e;
+        }
+        return record;
+    }
+
+    @Override
+    public void release(BinaryRecord record) {
+        pool.release(record);
+    }
+
+    public static int sizeOf(BinaryRecord record) {
+        int size = HEADER_SIZE;
+        for (int i = 0; i < record.getFieldCount(); i++) {
+            size += 1 + record.getType(i).size;
+        }
+        return size;
+    }
+
+    public static void encode(BinaryRecord record, ByteBuffer target) {
+        if (record.getFieldCount() > 255) {
+            throw new IllegalArgumentException("Too many fields: " + record.getFieldCount());
+        }
+        target.putShort(MAGIC)
+                .put(VERSION)
+                .put((byte) record.getFieldCount())
+                .putInt(record.getSchemaId())
+                .putLong(record.getTimestamp());
+        for (int i = 0; i < record.getFieldCount(); i++) {
+            BinaryRecord.FieldType type = record.getType(i);
+            long bits = record.getBits(i);
+            target.put(type.code);
+            switch (type) {
+                case LONG, DOUBLE -> target.putLong(bits);
+                case INT -> target.putInt((int) bits);
+                case BOOLEAN -> target.put((byte) bits);
+            }
+        }
+    }
+
+    public static byte[] encode(BinaryRecord record) {
+        ByteBuffer buffer = ByteBuffer.allocate(sizeOf(record));
+        encode(record, buffer);
+        return buffer.array();
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demo.mqtt.codec;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded pool of {@link BinaryRecord}s. Records not returned are simply garbage collected,
+ * and records returned to a full pool are dropped.
+ */
+public class BinaryRecordPool {
+
+    private final BlockingQueue<BinaryRecord> records;
+
+    public BinaryRecordPool(int capacity) {
+        this.records = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public BinaryRecord acquire() {
+        BinaryRecord record = records.poll();
+        return record != null ? record : new BinaryRecord();
+    }
+
+    public void release(BinaryRecord record) {
+        record.clear();
+        records.offer(record);
+    }
+
+    public int size() {
+        return records.size();
+    }
+}
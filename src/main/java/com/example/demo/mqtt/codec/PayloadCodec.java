@@ -0,0 +1,24 @@
+package com.example.demo.mqtt.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes raw MQTT payload bytes without an intermediate {@code String}.
+ * Implementations registered as beans are selectable by {@link #getName()} per topic filter.
+ */
+public interface PayloadCodec<T> {
+
+    String getName();
+
+    T decode(ByteBuffer payload);
+
+    default T decode(byte[] payload) {
+        return decode(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Returns a decoded value to the codec once the caller is done with it, so pooled values can be reused.
+     */
+    default void release(T value) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.demo.mqtt.codec;
+
+import com.example.demo.mqtt.MqttProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+@Configuration
+public class PayloadCodecConfig {
+    @Bean
+    public BinaryRecordPool binaryRecordPool(MqttProperties mqttProperties) {
+        return new BinaryRecordPool(mqttProperties.getRecordPoolSize());
+    }
+
+    @Bean
+    public RawPayloadCodec rawPayloadCodec() {
+        return new RawPayloadCodec();
+    }
+
+    @Bean
+    public BinaryRecordCodec binaryRecordCodec(BinaryRecordPool binaryRecordPool) {
+        return new BinaryRecordCodec(binaryRecordPool);
+    }
+
+    @Bean
+    public JsonPayloadCodec jsonPayloadCodec(ObjectMapper objectMapper) {
+        return new JsonPayloadCodec(objectMapper);
+    }
+
+    @Bean
+    public PayloadCodecRegistry payloadCodecRegistry(List<PayloadCodec<?>> codecs, MqttProperties mqttProperties) {
+        return new PayloadCodecRegistry(codecs, mqttProperties.getCodecs(), mqttProperties.getDefaultCodec());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.demo.mqtt.codec;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.eclipse.paho.client.mqttv3.MqttTopic;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves the {@link PayloadCodec} of a topic from an ordered map of topic filters to codec names.
+ * The first matching filter wins and the result is cached per topic, for a bounded number of topics.
+ */
+public class PayloadCodecRegistry {
+
+    private static final int MAX_RESOLVED_TOPICS = 10_000;
+
+    private final Map<String, PayloadCodec<?>> topicFilters = new LinkedHashMap<>();
+    private final PayloadCodec<?> defaultCodec;
+    private final Cache<String, PayloadCodec<?>> resolved = Caffeine.newBuilder().maximumSize(MAX_RESOLVED_TOPICS).build();
+
+    public PayloadCodecRegistry(List<PayloadCodec<?>> codecs, Map<String, String> topicCodecs, String defaultCodec) {
+        Map<String, PayloadCodec<?>> byName = codecs.stream()
+                .collect(Collectors.toMap(PayloadCodec::getName, Function.identity()));
+        topicCodecs.forEach((filter, name) -> topicFilters.put(filter, lookup(byName, name)));
+        this.defaultCodec = lookup(byName, defaultCodec);
+    }
+
+    private static PayloadCodec<?> lookup(Map<String, PayloadCodec<?>> codecs, String name) {
+        PayloadCodec<?> codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("Unknown payload codec '%s', available: %s".formatted(name, codecs.keySet()));
+        }
+        return codec;
+    }
+
+    public PayloadCodec<?> getCodec(String topic) {
+        if (topic == null) {
+            return defaultCodec;
+        }
+        return resolved.get(topic, t -> topicFilters.entrySet().stream()
+                .filter(entry -> MqttTopic.isMatched(entry.getKey(), t))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(defaultCodec));
+    }
+
+    public Object decode(Message<?> message) {
+        return getCodec(message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class)).decode(toBuffer(message.getPayload()));
+    }
+
+    @SuppressWarnings("unchecked")
+    public void release(Message<?> message, Object value) {
+        ((PayloadCodec<Object>) getCodec(message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class))).release(value);
+    }
+
+    private static ByteBuffer toBuffer(Object payload) {
+        if (payload instanceof byte[] bytes) {
+            return ByteBuffer.wrap(bytes);
+        }
+        if (payload instanceof ByteBuffer buffer) {
+            return buffer;
+        }
+        if (payload instanceof String text) {
+            return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        }
+        throw new IllegalArgumentException("Unsupported payload type: " + payload.getClass().getName());
+    }
+}
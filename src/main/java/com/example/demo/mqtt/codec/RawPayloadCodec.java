@@ -0,0 +1,18 @@
+package com.example.demo.mqtt.codec;
+
+import java.nio.ByteBuffer;
+
+public class RawPayloadCodec implements PayloadCodec<ByteBuffer> {
+
+    public static final String NAME = "raw";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public ByteBuffer decode(ByteBuffer payload) {
+        return payload;
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.demo.postgres;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Reusable buffer of rows in the PostgreSQL binary COPY format. Values are encoded straight into
+ * a growable {@code byte[]}, so no intermediate objects are created per row.
+ */
+public final class PgBinaryRowBuffer {
+
+    private static final byte[] HEADER = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0};
+    private static final long MICROS_1970_TO_2000 = 946_684_800_000_000L;
+
+    private byte[] bytes;
+    private int position;
+    private int rows;
+    private int rowStart;
+
+    public PgBinaryRowBuffer(int initialCapacity) {
+        this.bytes = new byte[Math.max(initialCapacity, HEADER.length + 2)];
+        reset();
+    }
+
+    public void reset() {
+        System.arraycopy(HEADER, 0, bytes, 0, HEADER.length);
+        position = HEADER.length;
+        rows = 0;
+    }
+
+    public void beginRow(int fields) {
+        rowStart = position;
+        writeShort(fields);
+    }
+
+    public void endRow() {
+        rows++;
+    }
+
+    /**
+     * Discards the row started by the last {@link #beginRow(int)}.
+     */
+    public void cancelRow() {
+        position = rowStart;
+    }
+
+    public void putNull() {
+        writeInt(-1);
+    }
+
+    public void putLong(long value) {
+        writeInt(Long.BYTES);
+        writeLong(value);
+    }
+
+    public void putInt(int value) {
+        writeInt(Integer.BYTES);
+        writeInt(value);
+    }
+
+    public void putDouble(double value) {
+        writeInt(Double.BYTES);
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void putBoolean(boolean value) {
+        writeInt(1);
+        ensure(1);
+        bytes[position++] = (byte) (value ? 1 : 0);
+    }
+
+    public void putTimestamp(long epochMicros) {
+        putLong(epochMicros - MICROS_1970_TO_2000);
+    }
+
+    public void putText(String value) {
+        if (value == null) {
+            putNull();
+            return;
+        }
+        int lengthAt = position;
+        writeInt(0);
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char ch = value.charAt(i);
+            if (ch < 0x80) {
+                ensure(1);
+                bytes[position++] = (byte) ch;
+            } else if (ch < 0x800) {
+                ensure(2);
+                bytes[position++] = (byte) (0xC0 | (ch >> 6));
+                bytes[position++] = (byte) (0x80 | (ch & 0x3F));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(ch, value.charAt(++i));
+                ensure(4);
+                bytes[position++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(ch)) {
+                ensure(1);
+                bytes[position++] = '?';
+            } else {
+                ensure(3);
+                bytes[position++] = (byte) (0xE0 | (ch >> 12));
+                bytes[position++] = (byte) (0x80 | ((ch >> 6) & 0x3F));
+                bytes[position++] = (byte) (0x80 | (ch & 0x3F));
+            }
+        }
+        int byteLength = position - lengthAt - Integer.BYTES;
+        bytes[lengthAt] = (byte) (byteLength >>> 24);
+        bytes[lengthAt + 1] = (byte) (byteLength >>> 16);
+        bytes[lengthAt + 2] = (byte) (byteLength >>> 8);
+        bytes[lengthAt + 3] = (byte) byteLength;
+    }
+
+    /**
+     * Appends the trailer. The buffer then holds a complete COPY stream until {@link #reset()}.
+     */
+    public void finish() {
+        writeShort(-1);
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int length() {
+        return position;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Decodes the buffered rows back into values, for the INSERT fallback.
+     */
+    public void forEachRow(PgColumnType[] types, Consumer<Object[]> consumer) {
+        int offset = HEADER.length;
+        for (int row = 0; row < rows; row++) {
+            int fields = readShort(offset);
+            offset += Short.BYTES;
+            Object[] values = new Object[fields];
+            for (int field = 0; field < fields; field++) {
+                int length = readInt(offset);
+                offset += Integer.BYTES;
+                if (length < 0) {
+                    continue;
+                }
+                values[field] = switch (types[field]) {
+                    case INT8 -> readLong(offset);
+                    case INT4 -> readInt(offset);
+                    case FLOAT8 -> Double.longBitsToDouble(readLong(offset));
+                    case BOOL -> bytes[offset] != 0;
+                    case TEXT -> new String(bytes, offset, length, StandardCharsets.UTF_8);
+                    case TIMESTAMPTZ -> OffsetDateTime.ofInstant(
+                            Instant.EPOCH.plus(readLong(offset) + MICROS_1970_TO_2000, ChronoUnit.MICROS), ZoneOffset.UTC);
+                };
+                offset += length;
+            }
+            consumer.accept(values);
+        }
+    }
+
+    private void ensure(int extra) {
+        if (position + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, position + extra));
+        }
+    }
+
+    private void writeShort(int value) {
+        ensure(2);
+        bytes[position++] = (byte) (value >>> 8);
+        bytes[position++] = (byte) value;
+    }
+
+    private void writeInt(int value) {
+        ensure(4);
+        bytes[position++] = (byte) (value >>> 24);
+        bytes[position++] = (byte) (value >>> 16);
+        bytes[position++] = (byte) (value >>> 8);
+        bytes[position++] = (byte) value;
+    }
+
+    private void writeLong(long value) {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    private short readShort(int offset) {
+        return (short) (((bytes[offset] & 0xFF) << 8) | (bytes[offset + 1] & 0xFF));
+    }
+
+    private int readInt(int offset) {
+        return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16)
+                | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+    }
+
+    private long readLong(int offset) {
+        return ((long) readInt(offset) << 32) | (readInt(offset + 4) & 0xFFFFFFFFL);
+    }
+}
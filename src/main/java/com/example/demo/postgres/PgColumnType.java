@@ -0,0 +1,13 @@
+package com.example.demo.postgres;
+
+public enum PgColumnType {
+    INT8,
+    INT4,
+    FLOAT8,
+    BOOL,
+    TEXT,
+    /**
+     * Written as microseconds since the epoch.
+     */
+    TIMESTAMPTZ
+}
@@ -0,0 +1,123 @@
+package com.example.demo.postgres;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Rows buffered for one COPY target. Rows are written between {@link #beginRow()} and {@link #endRow()}
+ * with one {@code put} call per column, in column order:
+ * <pre>
+ * buffer.beginRow();
+ * buffer.putTimestamp(epochMicros).putText("GET").putLong(200);
+ * buffer.endRow();
+ * </pre>
+ * Filled buffers are swapped with a spare, so writers keep appending while a COPY is running.
+ */
+public final class PgCopyBuffer {
+
+    private static final int INITIAL_CAPACITY = 64 * 1024;
+
+    private final PgCopyLoader loader;
+    private final PgCopyTable table;
+    private final int flushRows;
+    private final long flushBytes;
+    private PgBinaryRowBuffer active = new PgBinaryRowBuffer(INITIAL_CAPACITY);
+    private PgBinaryRowBuffer spare = new PgBinaryRowBuffer(INITIAL_CAPACITY);
+
+    final ReentrantLock lock = new ReentrantLock();
+    final ReentrantLock flushLock = new ReentrantLock();
+
+    PgCopyBuffer(PgCopyLoader loader, PgCopyTable table, int flushRows, long flushBytes) {
+        this.loader = loader;
+        this.table = table;
+        this.flushRows = flushRows;
+        this.flushBytes = flushBytes;
+    }
+
+    public PgCopyTable getTable() {
+        return table;
+    }
+
+    /**
+     * Locks the buffer for the current thread. Must be followed by {@link #endRow()} or {@link #cancelRow()}.
+     *
+     * @throws IllegalStateException once the loader has stopped, since the row would never be copied
+     */
+    public void beginRow() {
+        loader.checkNotStopped();
+        lock.lock();
+        active.beginRow(table.columns().length);
+    }
+
+    public PgCopyBuffer putNull() {
+        active.putNull();
+        return this;
+    }
+
+    public PgCopyBuffer putLong(long value) {
+        active.putLong(value);
+        return this;
+    }
+
+    public PgCopyBuffer putInt(int value) {
+        active.putInt(value);
+        return this;
+    }
+
+    public PgCopyBuffer putDouble(double value) {
+        active.putDouble(value);
+        return this;
+    }
+
+    public PgCopyBuffer putBoolean(boolean value) {
+        active.putBoolean(value);
+        return this;
+    }
+
+    public PgCopyBuffer putTimestamp(long epochMicros) {
+        active.putTimestamp(epochMicros);
+        return this;
+    }
+
+    public PgCopyBuffer putText(String value) {
+        active.putText(value);
+        return this;
+    }
+
+    public void endRow() {
+        boolean full;
+        try {
+            active.endRow();
+            full = active.rows() >= flushRows || active.length() >= flushBytes;
+        } finally {
+            lock.unlock();
+        }
+        if (full) {
+            loader.flush(this);
+        }
+    }
+
+    public void cancelRow() {
+        try {
+            active.cancelRow();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Swaps the filled buffer with the spare. Caller holds {@link #flushLock} and {@link #lock}.
+     */
+    PgBinaryRowBuffer swap() {
+        if (active.rows() == 0) {
+            return null;
+        }
+        PgBinaryRowBuffer filled = active;
+        active = spare;
+        spare = filled;
+        return filled;
+    }
+
+    int rows() {
+        return active.rows();
+    }
+}
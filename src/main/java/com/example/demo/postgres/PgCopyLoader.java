@@ -0,0 +1,252 @@
+package com.example.demo.postgres;
+
+import com.example.demo.metrics.DeferredTimer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bulk loader streaming rows into PostgreSQL with binary {@code COPY ... FROM STDIN}.
+ * Rows are buffered per target table, usually a partition. Targets are copied in parallel, one
+ * stream each, and a target whose COPY fails is retried with batched INSERTs.
+ */
+@Slf4j
+@Component
+public class PgCopyLoader implements SmartLifecycle, MeterBinder {
+
+    private final DataSource dataSource;
+    private final PostgresProperties.Copy properties;
+    private final Map<String, PgCopyBuffer> buffers = new ConcurrentHashMap<>();
+    private final LongAdder copied = new LongAdder();
+    private final LongAdder inserted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile boolean stopped;
+    private final DeferredTimer loadTimer = new DeferredTimer("postgres.copy",
+            "Time to load a buffered batch into its target table", "method");
+
+    public PgCopyLoader(DataSource dataSource, PostgresProperties postgresProperties) {
+        this.dataSource = dataSource;
+        this.properties = postgresProperties.getCopy();
+    }
+
+    public PgCopyBuffer buffer(PgCopyTable table) {
+        checkNotStopped();
+        return buffers.computeIfAbsent(table.name(),
+                name -> new PgCopyBuffer(this, table, properties.getFlushRows(), properties.getFlushSize().toBytes()));
+    }
+
+    /**
+     * Copies every non-empty target in parallel and waits for completion.
+     */
+    public void flush() {
+        checkNotStopped();
+        List<CompletableFuture<Void>> futures = buffers.values().stream()
+                .filter(buffer -> buffer.rows() > 0)
+                .map(buffer -> CompletableFuture.runAsync(() -> flush(buffer), executor()))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    }
+
+    void flush(PgCopyBuffer buffer) {
+        buffer.flushLock.lock();
+        try {
+            PgBinaryRowBuffer rows;
+            buffer.lock.lock();
+            try {
+                rows = buffer.swap();
+            } finally {
+                buffer.lock.unlock();
+            }
+            if (rows == null) {
+                return;
+            }
+            try {
+                write(buffer.getTable(), rows);
+            } finally {
+                rows.reset();
+            }
+        } finally {
+            buffer.flushLock.unlock();
+        }
+    }
+
+    private void write(PgCopyTable table, PgBinaryRowBuffer rows) {
+        rows.finish();
+        long start = System.nanoTime();
+        try {
+            copy(table, rows);
+            copied.add(rows.rows());
+            loadTimer.recordSince(start, "copy");
+        } catch (SQLException e) {
+            log.warn("COPY of {} rows into {} failed, falling back to INSERT: {}", rows.rows(), table.name(), e.getMessage());
+            start = System.nanoTime();
+            try {
+                insert(table, rows);
+                inserted.add(rows.rows());
+                loadTimer.recordSince(start, "insert");
+            } catch (SQLException fallback) {
+                failed.add(rows.rows());
+                log.error("INSERT fallback of {} rows into {} failed", rows.rows(), table.name(), fallback);
+            }
+        }
+    }
+
+    private void copy(PgCopyTable table, PgBinaryRowBuffer rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(table.copySql());
+            try {
+                copyIn.writeToCopy(rows.array(), 0, rows.length());
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+    }
+
+    private void insert(PgCopyTable table, PgBinaryRowBuffer rows) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(table.insertSql())) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                int[] pending = {0};
+                SQLException[] error = {null};
+                rows.forEachRow(table.types(), values -> {
+                    if (error[0] != null) {
+                        return;
+                    }
+                    try {
+                        for (int i = 0; i < values.length; i++) {
+                            statement.setObject(i + 1, values[i]);
+                        }
+                        statement.addBatch();
+                        if (++pending[0] == properties.getFallbackBatchSize()) {
+                            statement.executeBatch();
+                            pending[0] = 0;
+                        }
+                    } catch (SQLException e) {
+                        error[0] = e;
+                    }
+                });
+                if (error[0] != null) {
+                    throw error[0];
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    void checkNotStopped() {
+        if (stopped) {
+            throw new IllegalStateException("COPY loader is stopped, its last rows have already been flushed");
+        }
+    }
+
+    private synchronized ExecutorService executor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(properties.getParallelism(), new CustomizableThreadFactory("pg-copy-"));
+        }
+        return executor;
+    }
+
+    public long getCopiedCount() {
+        return copied.sum();
+    }
+
+    public long getInsertedCount() {
+        return inserted.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        loadTimer.bindTo(registry);
+        FunctionCounter.builder("postgres.copy.rows", this, PgCopyLoader::getCopiedCount)
+                .tag("result", "copied").register(registry);
+        FunctionCounter.builder("postgres.copy.rows", this, PgCopyLoader::getInsertedCount)
+                .tag("result", "inserted").register(registry);
+        FunctionCounter.builder("postgres.copy.rows", this, PgCopyLoader::getFailedCount)
+                .tag("result", "failed").register(registry);
+    }
+
+    @Override
+    public void start() {
+        stopped = false;
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("pg-copy-flush-"));
+        long interval = properties.getFlushInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.error("Scheduled COPY flush failed", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flushQuietly();
+        stopped = true;
+        synchronized (this) {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops after the MQTT pipeline so the rows its sinks buffered still get copied.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE / 8;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.demo.postgres;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Target of binary COPY: a table, or a partition of it, and its columns in write order.
+ */
+public record PgCopyTable(String name, String[] columns, PgColumnType[] types) {
+
+    public PgCopyTable {
+        if (columns.length != types.length) {
+            throw new IllegalArgumentException("Column names and types differ in length");
+        }
+    }
+
+    /**
+     * Same columns written into another table, typically a partition.
+     */
+    public PgCopyTable withName(String name) {
+        return new PgCopyTable(name, columns, types);
+    }
+
+    String copySql() {
+        return "COPY %s (%s) FROM STDIN (FORMAT binary)".formatted(name, String.join(", ", columns));
+    }
+
+    String insertSql() {
+        String placeholders = Arrays.stream(columns).map(column -> "?").collect(Collectors.joining(", "));
+        return "INSERT INTO %s (%s) VALUES (%s)".formatted(name, String.join(", ", columns), placeholders);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.demo.postgres;
+
+import org.quartz.CronScheduleBuilder;
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.TimeZone;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.postgres.partition", name = "enabled", havingValue = "true")
+public class PgPartitionConfig {
+    @Bean
+    public PgPartitionManager pgPartitionManager(JdbcTemplate jdbcTemplate, PostgresProperties postgresProperties) {
+        return new PgPartitionManager(jdbcTemplate, postgresProperties.getPartition());
+    }
+
+    @Bean
+    public JobDetail pgPartitionJobDetail() {
+        return JobBuilder.newJob(PgPartitionJob.class)
+                .withIdentity("pgPartitionJob")
+                .storeDurably()
+                .build();
+    }
+
+    @Bean
+    public Trigger pgPartitionTrigger(JobDetail pgPartitionJobDetail, PostgresProperties postgresProperties) {
+        return TriggerBuilder.newTrigger()
+                .forJob(pgPartitionJobDetail)
+                .withIdentity("pgPartitionTrigger")
+                .withSchedule(CronScheduleBuilder.cronSchedule(postgresProperties.getPartition().getCron())
+                        .inTimeZone(TimeZone.getTimeZone(postgresProperties.getPartition().getZone())))
+                .build();
+    }
+
+    @Bean
+    public Trigger pgPartitionStartupTrigger(JobDetail pgPartitionJobDetail) {
+        return TriggerBuilder.newTrigger()
+                .forJob(pgPartitionJobDetail)
+                .withIdentity("pgPartitionStartupTrigger")
+                .startNow()
+                .build();
+    }
+}
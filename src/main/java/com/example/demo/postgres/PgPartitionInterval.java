@@ -0,0 +1,45 @@
+package com.example.demo.postgres;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+public enum PgPartitionInterval {
+    DAILY(ChronoUnit.DAYS, DateTimeFormatter.ofPattern("yyyyMMdd")),
+    MONTHLY(ChronoUnit.MONTHS, DateTimeFormatter.ofPattern("yyyyMM"));
+
+    private final ChronoUnit unit;
+    private final DateTimeFormatter suffixFormat;
+
+    PgPartitionInterval(ChronoUnit unit, DateTimeFormatter suffixFormat) {
+        this.unit = unit;
+        this.suffixFormat = suffixFormat;
+    }
+
+    public LocalDate floor(LocalDate date) {
+        return this == MONTHLY ? date.with(TemporalAdjusters.firstDayOfMonth()) : date;
+    }
+
+    public LocalDate plus(LocalDate start, long amount) {
+        return start.plus(amount, unit);
+    }
+
+    public String suffix(LocalDate start) {
+        return suffixFormat.format(start);
+    }
+
+    /**
+     * Start of the partition with the given suffix, or {@code null} if the suffix does not belong to this interval.
+     */
+    public LocalDate parse(String suffix) {
+        try {
+            if (this == MONTHLY) {
+                return LocalDate.parse(suffix + "01", DAILY.suffixFormat);
+            }
+            return LocalDate.parse(suffix, suffixFormat);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo.postgres;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+@DisallowConcurrentExecution
+public class PgPartitionJob extends QuartzJobBean {
+
+    @Autowired
+    private PgPartitionManager pgPartitionManager;
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        pgPartitionManager.maintain();
+    }
+}
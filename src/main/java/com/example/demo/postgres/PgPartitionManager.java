@@ -0,0 +1,114 @@
+package com.example.demo.postgres;
+
+import com.example.demo.metrics.DeferredTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps declarative range partitions of the configured tables ahead of time. Future partitions are
+ * created with a BRIN index on the partition column, and expired partitions are detached and
+ * optionally dropped. Partitions are named {@code <table>_p<yyyyMM|yyyyMMdd>}.
+ */
+@Slf4j
+public class PgPartitionManager implements MeterBinder {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*(\\.[A-Za-z_][A-Za-z0-9_]*)?");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresProperties.Partition properties;
+    private final DeferredTimer maintainTimer = new DeferredTimer("postgres.partition.maintain",
+            "Time to create and expire the partitions of every table");
+
+    public PgPartitionManager(JdbcTemplate jdbcTemplate, PostgresProperties.Partition properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        properties.getTables().forEach(table -> {
+            if (!IDENTIFIER.matcher(table.getName()).matches() || !IDENTIFIER.matcher(table.getColumn()).matches()) {
+                throw new IllegalArgumentException("Invalid partitioned table definition: %s(%s)".formatted(table.getName(), table.getColumn()));
+            }
+        });
+    }
+
+    public void maintain() {
+        long start = System.nanoTime();
+        LocalDate today = LocalDate.now(properties.getZone());
+        for (PostgresProperties.Table table : properties.getTables()) {
+            try {
+                createPartitions(table, today);
+                expirePartitions(table, today);
+            } catch (RuntimeException e) {
+                log.error("Partition maintenance of {} failed", table.getName(), e);
+            }
+        }
+        maintainTimer.recordSince(start);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        maintainTimer.bindTo(registry);
+    }
+
+    void createPartitions(PostgresProperties.Table table, LocalDate today) {
+        PgPartitionInterval interval = table.getInterval();
+        LocalDate current = interval.floor(today);
+        ZoneId zone = properties.getZone();
+        for (int i = 0; i <= table.getPremake(); i++) {
+            LocalDate from = interval.plus(current, i);
+            LocalDate to = interval.plus(from, 1);
+            String partition = partitionName(table, from);
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')".formatted(
+                    partition, table.getName(), from.atStartOfDay(zone).toOffsetDateTime(), to.atStartOfDay(zone).toOffsetDateTime()));
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS %s_%s_brin ON %s USING brin (%s)".formatted(
+                    relationName(partition), table.getColumn(), partition, table.getColumn()));
+        }
+    }
+
+    void expirePartitions(PostgresProperties.Table table, LocalDate today) {
+        PgPartitionInterval interval = table.getInterval();
+        LocalDate cutoff = interval.plus(interval.floor(today), -table.getRetention());
+        String prefix = relationName(table.getName()) + "_p";
+        String schema = schemaPrefix(table.getName());
+
+        for (String child : listPartitions(table)) {
+            if (!child.startsWith(prefix)) {
+                continue;
+            }
+            LocalDate start = interval.parse(child.substring(prefix.length()));
+            if (start == null || !start.isBefore(cutoff)) {
+                continue;
+            }
+            String partition = schema + child;
+            jdbcTemplate.execute("ALTER TABLE %s DETACH PARTITION %s".formatted(table.getName(), partition));
+            if (table.isDropExpired()) {
+                jdbcTemplate.execute("DROP TABLE %s".formatted(partition));
+            }
+            log.info("Expired partition {} of {} ({})", partition, table.getName(), table.isDropExpired() ? "dropped" : "detached");
+        }
+    }
+
+    public List<String> listPartitions(PostgresProperties.Table table) {
+        return jdbcTemplate.queryForList("""
+                SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = ?::regclass ORDER BY c.relname""", String.class, table.getName());
+    }
+
+    private static String partitionName(PostgresProperties.Table table, LocalDate from) {
+        return table.getName() + "_p" + table.getInterval().suffix(from);
+    }
+
+    private static String relationName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1);
+    }
+
+    private static String schemaPrefix(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(0, dot + 1);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.demo.postgres;
+
+import com.example.demo.metrics.DeferredTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Array;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.stream.Stream;
+
+/**
+ * Snapshots {@code pg_stat_statements} of the current database and ranks the top statements by total
+ * and by mean execution time spent since the previous snapshot. The counters of every statement are
+ * kept between snapshots so a statement entering the top list still gets a correct interval delta;
+ * the first snapshot covers the time since the statistics were last reset.
+ */
+@Slf4j
+public class PgStatStatementsCollector implements MeterBinder {
+
+    private static final String SELECT_COUNTERS = """
+            SELECT userid, queryid, toplevel, calls, total_exec_time, rows FROM pg_stat_statements
+            WHERE queryid IS NOT NULL AND dbid = (SELECT oid FROM pg_database WHERE datname = current_database())""";
+
+    private static final String SELECT_QUERIES = """
+            SELECT userid, queryid, toplevel, left(query, ?) AS query FROM pg_stat_statements
+            WHERE queryid = ANY(?) AND dbid = (SELECT oid FROM pg_database WHERE datname = current_database())""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PostgresProperties.Statements properties;
+
+    private volatile Map<Key, Counters> previous = Map.of();
+    private Instant previousAt;
+    private volatile Snapshot lastSnapshot;
+    private final DeferredTimer collectTimer = new DeferredTimer("postgres.statements.collect",
+            "Time to snapshot pg_stat_statements");
+    private volatile MultiGauge callsGauge;
+    private volatile MultiGauge totalTimeGauge;
+    private volatile MultiGauge meanTimeGauge;
+    private volatile MultiGauge rowsGauge;
+
+    public PgStatStatementsCollector(JdbcTemplate jdbcTemplate, PostgresProperties.Statements properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    public synchronized Snapshot collect() {
+        long start = System.nanoTime();
+        Instant collectedAt = Instant.now();
+        Map<Key, Counters> current = new HashMap<>();
+        jdbcTemplate.query(SELECT_COUNTERS, rs -> {
+            current.put(new Key(rs.getLong("userid"), rs.getLong("queryid"), rs.getBoolean("toplevel")),
+                    new Counters(rs.getLong("calls"), rs.getDouble("total_exec_time"), rs.getLong("rows")));
+        });
+
+        List<Delta> deltas = new ArrayList<>(current.size());
+        current.forEach((key, counters) -> {
+            Counters before = previous.get(key);
+            // [NOTE] A statement seen for the first time or whose calls went down after a reset counts from zero.
+            if (before == null || counters.calls() < before.calls()) {
+                before = Counters.ZERO;
+            }
+            long calls = counters.calls() - before.calls();
+            if (calls > 0) {
+                deltas.add(new Delta(key, counters, calls, counters.totalTime() - before.totalTime(), counters.rows() - before.rows()));
+            }
+        });
+
+        List<Delta> byTotalTime = top(deltas, Delta::totalTime);
+        List<Delta> byMeanTime = top(deltas.stream().filter(delta -> delta.calls() >= properties.getMinCalls()).toList(), Delta::meanTime);
+        Map<Key, String> queries = queries(byTotalTime, byMeanTime);
+        Function<Delta, Statement> toStatement = delta -> delta.toStatement(queries.get(delta.key()));
+
+        Snapshot snapshot = new Snapshot(collectedAt, previousAt, current.size(),
+                byTotalTime.stream().map(toStatement).toList(), byMeanTime.stream().map(toStatement).toList());
+        previous = current;
+        previousAt = collectedAt;
+        lastSnapshot = snapshot;
+        publish(snapshot);
+
+        collectTimer.recordSince(start);
+        log.debug("Collected {} statements, {} called since the previous snapshot", current.size(), deltas.size());
+        return snapshot;
+    }
+
+    private List<Delta> top(List<Delta> deltas, ToDoubleFunction<Delta> metric) {
+        return deltas.stream()
+                .sorted(Comparator.comparingDouble(metric).reversed())
+                .limit(properties.getTopN())
+                .toList();
+    }
+
+    private Map<Key, String> queries(List<Delta> byTotalTime, List<Delta> byMeanTime) {
+        Map<Key, String> queries = new HashMap<>();
+        Long[] queryIds = Stream.concat(byTotalTime.stream(), byMeanTime.stream())
+                .map(delta -> delta.key().queryId())
+                .distinct()
+                .toArray(Long[]::new);
+        if (queryIds.length == 0) {
+            return queries;
+        }
+        jdbcTemplate.query(SELECT_QUERIES, ps -> {
+            Array array = ps.getConnection().createArrayOf("int8", queryIds);
+            ps.setInt(1, properties.getMaxQueryLength());
+            ps.setArray(2, array);
+        }, rs -> {
+            queries.put(new Key(rs.getLong("userid"), rs.getLong("queryid"), rs.getBoolean("toplevel")), rs.getString("query"));
+        });
+        return queries;
+    }
+
+    private void publish(Snapshot snapshot) {
+        if (callsGauge == null) {
+            return;
+        }
+        // [NOTE] A statement ranked by both total and mean time is published once.
+        Map<Tags, Statement> statements = new LinkedHashMap<>();
+        Stream.concat(snapshot.topByTotalTime().stream(), snapshot.topByMeanTime().stream())
+                .forEach(statement -> statements.putIfAbsent(statement.tags(), statement));
+        callsGauge.register(rows(statements.values(), Statement::intervalCalls), true);
+        totalTimeGauge.register(rows(statements.values(), Statement::intervalTotalTime), true);
+        meanTimeGauge.register(rows(statements.values(), Statement::intervalMeanTime), true);
+        rowsGauge.register(rows(statements.values(), Statement::intervalRows), true);
+    }
+
+    private static List<MultiGauge.Row<?>> rows(Collection<Statement> statements, Function<Statement, Number> value) {
+        return statements.stream()
+                .<MultiGauge.Row<?>>map(statement -> MultiGauge.Row.of(statement.tags(), value.apply(statement)))
+                .toList();
+    }
+
+    public Snapshot getLastSnapshot() {
+        return lastSnapshot;
+    }
+
+    public int getTrackedCount() {
+        return previous.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        collectTimer.bindTo(registry);
+        Gauge.builder("postgres.statements.tracked", this, PgStatStatementsCollector::getTrackedCount)
+                .description("Statements of the current database tracked by pg_stat_statements")
+                .register(registry);
+        callsGauge = MultiGauge.builder("postgres.statements.calls")
+                .description("Calls of a top statement during the last interval")
+                .register(registry);
+        totalTimeGauge = MultiGauge.builder("postgres.statements.total.time")
+                .description("Execution time of a top statement during the last interval")
+                .baseUnit("milliseconds")
+                .register(registry);
+        meanTimeGauge = MultiGauge.builder("postgres.statements.mean.time")
+                .description("Mean execution time of a top statement during the last interval")
+                .baseUnit("milliseconds")
+                .register(registry);
+        rowsGauge = MultiGauge.builder("postgres.statements.rows")
+                .description("Rows returned or affected by a top statement during the last interval")
+                .register(registry);
+    }
+
+    private record Key(long userId, long queryId, boolean topLevel) {
+    }
+
+    private record Counters(long calls, double totalTime, long rows) {
+        static final Counters ZERO = new Counters(0, 0, 0);
+    }
+
+    private record Delta(Key key, Counters counters, long calls, double totalTime, long rows) {
+        double meanTime() {
+            return totalTime / calls;
+        }
+
+        Statement toStatement(String query) {
+            return new Statement(key.queryId(), key.userId(), key.topLevel(), query,
+                    counters.calls(), counters.totalTime(), counters.rows(), calls, totalTime, meanTime(), rows);
+        }
+    }
+
+    /**
+     * Cumulative counters of a statement and their change during the snapshot interval. Times are in milliseconds.
+     */
+    public record Statement(long queryId, long userId, boolean topLevel, String query,
+                            long calls, double totalTime, long rows,
+                            long intervalCalls, double intervalTotalTime, double intervalMeanTime, long intervalRows) {
+        Tags tags() {
+            return Tags.of("queryid", Long.toString(queryId), "userid", Long.toString(userId), "toplevel", Boolean.toString(topLevel));
+        }
+    }
+
+    /**
+     * Top statements of the interval from {@code since} to {@code collectedAt}. {@code since} is null for the first snapshot.
+     */
+    public record Snapshot(Instant collectedAt, Instant since, int tracked,
+                           List<Statement> topByTotalTime, List<Statement> topByMeanTime) {
+    }
+}
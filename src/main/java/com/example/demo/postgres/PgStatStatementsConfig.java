@@ -0,0 +1,49 @@
+package com.example.demo.postgres;
+
+import org.quartz.JobBuilder;
+import org.quartz.JobDetail;
+import org.quartz.SimpleScheduleBuilder;
+import org.quartz.Trigger;
+import org.quartz.TriggerBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@Configuration
+@ConditionalOnProperty(prefix = "spring.postgres.statements", name = "enabled", havingValue = "true")
+public class PgStatStatementsConfig {
+    @Bean
+    public PgStatStatementsCollector pgStatStatementsCollector(JdbcTemplate jdbcTemplate, PostgresProperties postgresProperties) {
+        return new PgStatStatementsCollector(jdbcTemplate, postgresProperties.getStatements());
+    }
+
+    @Bean
+    public PgStatStatementsEndpoint pgStatStatementsEndpoint(PgStatStatementsCollector pgStatStatementsCollector) {
+        return new PgStatStatementsEndpoint(pgStatStatementsCollector);
+    }
+
+    @Bean
+    public JobDetail pgStatStatementsJobDetail() {
+        return JobBuilder.newJob(PgStatStatementsJob.class)
+                .withIdentity("pgStatStatementsJob")
+                .storeDurably()
+                .build();
+    }
+
+    /**
+     * Fires once at startup for the baseline snapshot and then every interval.
+     */
+    @Bean
+    public Trigger pgStatStatementsTrigger(JobDetail pgStatStatementsJobDetail, PostgresProperties postgresProperties) {
+        return TriggerBuilder.newTrigger()
+                .forJob(pgStatStatementsJobDetail)
+                .withIdentity("pgStatStatementsTrigger")
+                .withSchedule(SimpleScheduleBuilder.simpleSchedule()
+                        .withIntervalInMilliseconds(postgresProperties.getStatements().getInterval().toMillis())
+                        .repeatForever()
+                        .withMisfireHandlingInstructionNextWithRemainingCount())
+                .startNow()
+                .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.postgres;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * Exposes the last {@code pg_stat_statements} snapshot as {@code /actuator/pgstatements}.
+ * Read only: a snapshot advances the baseline of the rates, so only the scheduled job takes them.
+ */
+@Endpoint(id = "pgstatements")
+public class PgStatStatementsEndpoint {
+
+    private final PgStatStatementsCollector collector;
+
+    public PgStatStatementsEndpoint(PgStatStatementsCollector collector) {
+        this.collector = collector;
+    }
+
+    @ReadOperation
+    public PgStatStatementsCollector.Snapshot snapshot() {
+        return collector.getLastSnapshot();
+    }
+}
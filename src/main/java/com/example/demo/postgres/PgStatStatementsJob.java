@@ -0,0 +1,18 @@
+package com.example.demo.postgres;
+
+import org.quartz.DisallowConcurrentExecution;
+import org.quartz.JobExecutionContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.quartz.QuartzJobBean;
+
+@DisallowConcurrentExecution
+public class PgStatStatementsJob extends QuartzJobBean {
+
+    @Autowired
+    private PgStatStatementsCollector pgStatStatementsCollector;
+
+    @Override
+    protected void executeInternal(JobExecutionContext context) {
+        pgStatStatementsCollector.collect();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.postgres;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("spring.postgres")
+@Component
+@Getter
+@Setter
+public class PostgresProperties {
+    private Copy copy = new Copy();
+    private Partition partition = new Partition();
+    private Statements statements = new Statements();
+
+    @Getter
+    @Setter
+    public static class Copy {
+        /**
+         * Rows buffered per target table before a COPY is started.
+         */
+        private int flushRows = 10000;
+        /**
+         * Encoded size per target table before a COPY is started.
+         */
+        private DataSize flushSize = DataSize.ofMegabytes(8);
+        private Duration flushInterval = Duration.ofSeconds(1);
+        /**
+         * Number of COPY streams running at the same time, each to a different target table.
+         */
+        private int parallelism = 4;
+        /**
+         * Rows per JDBC batch when falling back to INSERT after a failed COPY.
+         */
+        private int fallbackBatchSize = 1000;
+    }
+
+    @Getter
+    @Setter
+    public static class Partition {
+        private boolean enabled;
+        /**
+         * Quartz cron expression of the maintenance run. It also runs once at startup.
+         */
+        private String cron = "0 5 0 * * ?";
+        /**
+         * Zone in which partition boundaries start.
+         */
+        private ZoneId zone = ZoneOffset.UTC;
+        private List<Table> tables = new ArrayList<>();
+    }
+
+    @Getter
+    @Setter
+    public static class Table {
+        /**
+         * Parent table, declared with {@code PARTITION BY RANGE (column)}.
+         */
+        private String name;
+        /**
+         * Time column the table is partitioned by, also indexed with BRIN.
+         */
+        private String column = "created";
+        private PgPartitionInterval interval = PgPartitionInterval.MONTHLY;
+        /**
+         * Number of future partitions kept ahead of the current one.
+         */
+        private int premake = 2;
+        /**
+         * Number of past partitions kept besides the current one. Older partitions are detached.
+         */
+        private int retention = 12;
+        /**
+         * Drop detached partitions instead of leaving them as standalone tables.
+         */
+        private boolean dropExpired = true;
+    }
+
+    @Getter
+    @Setter
+    public static class Statements {
+        /**
+         * Periodically snapshot {@code pg_stat_statements}, which must be in {@code shared_preload_libraries}.
+         */
+        private boolean enabled;
+        /**
+         * Interval between snapshots. Deltas are computed against the previous snapshot.
+         */
+        private Duration interval = Duration.ofMinutes(1);
+        /**
+         * Number of statements kept per ranking, by total and by mean execution time.
+         */
+        private int topN = 10;
+        /**
+         * Statements with fewer calls during an interval are left out of the mean time ranking.
+         */
+        private long minCalls = 1;
+        /**
+         * Maximum length of the query text kept per statement.
+         */
+        private int maxQueryLength = 1000;
+    }
+}
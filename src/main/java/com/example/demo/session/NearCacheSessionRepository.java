@@ -0,0 +1,367 @@
+package com.example.demo.session;
+
+import com.example.demo.metrics.DeferredTimer;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Session repository keeping recently used sessions in a bounded in-process cache in front of Redis.
+ * <ul>
+ *     <li>Reads are served from memory. Redis is only read on a miss.</li>
+ *     <li>Writes only send changed attributes. Requests that change nothing only refresh the last
+ *     access time and expiry, at most once per {@code touch-interval}.</li>
+ *     <li>Every write is announced on a pub/sub channel, so other nodes evict their copy.</li>
+ * </ul>
+ * Sessions are stored in the hash layout of Spring Session's {@code RedisSessionRepository}, with a
+ * key expiry instead of keyspace notifications. It therefore needs neither {@code CONFIG} nor {@code KEYS}.
+ */
+@Slf4j
+public class NearCacheSessionRepository implements SessionRepository<NearCacheSessionRepository.NearCacheSession>, MessageListener,
+        MeterBinder {
+
+    static final String CREATION_TIME = "creationTime";
+    static final String LAST_ACCESSED_TIME = "lastAccessedTime";
+    static final String MAX_INACTIVE_INTERVAL = "maxInactiveInterval";
+    static final String ATTRIBUTE_PREFIX = "sessionAttr:";
+
+    private final RedisOperations<String, Object> redis;
+    private final SessionNearCacheProperties properties;
+    private final Duration defaultMaxInactiveInterval;
+    private final String keyPrefix;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Cache<String, CachedSession> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final DeferredTimer loadTimer = new DeferredTimer("session.load",
+            "Time to load a session missing from the near cache from Redis");
+    private final DeferredTimer saveTimer = new DeferredTimer("session.save", "Time to write a session to Redis");
+
+    public NearCacheSessionRepository(RedisOperations<String, Object> redis, SessionNearCacheProperties properties,
+                                      Duration defaultMaxInactiveInterval) {
+        this.redis = redis;
+        this.properties = properties;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.keyPrefix = properties.getNamespace() + ":sessions:";
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .build();
+    }
+
+    @Override
+    public NearCacheSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new NearCacheSession(session, null, true);
+    }
+
+    @Override
+    public void save(NearCacheSession session) {
+        String id = session.getId();
+        boolean written = session.isNew ? saveNew(session) : saveDelta(session);
+        session.markSaved();
+        cache.put(id, new CachedSession(new MapSession(session.delegate), session.persistedLastAccessedTime));
+        if (session.originalId != null) {
+            cache.invalidate(session.originalId);
+        }
+        if (written) {
+            publishInvalidation(id);
+        }
+        if (session.originalId != null) {
+            publishInvalidation(session.originalId);
+            session.originalId = null;
+        }
+    }
+
+    private boolean saveNew(NearCacheSession session) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(CREATION_TIME, session.getCreationTime().toEpochMilli());
+        fields.put(LAST_ACCESSED_TIME, session.getLastAccessedTime().toEpochMilli());
+        fields.put(MAX_INACTIVE_INTERVAL, (int) session.getMaxInactiveInterval().getSeconds());
+        for (String name : session.getAttributeNames()) {
+            fields.put(ATTRIBUTE_PREFIX + name, session.getAttribute(name));
+        }
+        write(key(session.getId()), fields, Set.of(), expiry(session));
+        session.persistedLastAccessedTime = session.getLastAccessedTime();
+        return true;
+    }
+
+    private boolean saveDelta(NearCacheSession session) {
+        String key = key(session.getId());
+        if (session.originalId != null) {
+            try {
+                redis.rename(key(session.originalId), key);
+            } catch (NonTransientDataAccessException e) {
+                if (!"ERR no such key".equals(NestedExceptionUtils.getMostSpecificCause(e).getMessage())) {
+                    throw e;
+                }
+                // [NOTE] The old key expired or was deleted meanwhile, so the session is written in full under its new id.
+                return saveNew(session);
+            }
+        }
+        Map<String, Object> fields = new HashMap<>();
+        Set<String> removed = new HashSet<>();
+        session.delta.forEach((name, value) -> {
+            if (value == null) {
+                removed.add(ATTRIBUTE_PREFIX + name);
+            } else {
+                fields.put(ATTRIBUTE_PREFIX + name, value);
+            }
+        });
+        if (session.maxInactiveIntervalChanged) {
+            fields.put(MAX_INACTIVE_INTERVAL, (int) session.getMaxInactiveInterval().getSeconds());
+        }
+        boolean touch = Duration.between(session.persistedLastAccessedTime, session.getLastAccessedTime())
+                .compareTo(properties.getTouchInterval()) >= 0;
+        if (fields.isEmpty() && removed.isEmpty() && !touch) {
+            return false;
+        }
+        fields.put(LAST_ACCESSED_TIME, session.getLastAccessedTime().toEpochMilli());
+        write(key, fields, removed, expiry(session));
+        session.persistedLastAccessedTime = session.getLastAccessedTime();
+        return !session.delta.isEmpty() || session.maxInactiveIntervalChanged;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void write(String key, Map<String, Object> fields, Set<String> removed, Duration expiry) {
+        long start = System.nanoTime();
+        redis.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, Object> pipeline = (RedisOperations<String, Object>) operations;
+                if (!fields.isEmpty()) {
+                    pipeline.opsForHash().putAll(key, fields);
+                }
+                if (!removed.isEmpty()) {
+                    pipeline.opsForHash().delete(key, removed.toArray());
+                }
+                pipeline.expire(key, expiry);
+                return null;
+            }
+        });
+        saveTimer.recordSince(start);
+    }
+
+    /**
+     * Key expiry, padded by the touch interval since untouched reads do not extend it.
+     */
+    private Duration expiry(NearCacheSession session) {
+        return session.getMaxInactiveInterval().plus(properties.getTouchInterval());
+    }
+
+    @Override
+    public NearCacheSession findById(String id) {
+        CachedSession cached = cache.getIfPresent(id);
+        if (cached != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            long start = System.nanoTime();
+            MapSession loaded = load(id);
+            loadTimer.recordSince(start);
+            if (loaded == null) {
+                return null;
+            }
+            cached = new CachedSession(loaded, loaded.getLastAccessedTime());
+            cache.put(id, cached);
+        }
+        if (cached.session().isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return new NearCacheSession(new MapSession(cached.session()), cached.persistedLastAccessedTime(), false);
+    }
+
+    private MapSession load(String id) {
+        Map<Object, Object> entries = redis.opsForHash().entries(key(id));
+        if (entries.isEmpty()) {
+            return null;
+        }
+        MapSession session = new MapSession(id);
+        entries.forEach((field, value) -> {
+            String name = (String) field;
+            if (CREATION_TIME.equals(name)) {
+                session.setCreationTime(Instant.ofEpochMilli((Long) value));
+            } else if (LAST_ACCESSED_TIME.equals(name)) {
+                session.setLastAccessedTime(Instant.ofEpochMilli((Long) value));
+            } else if (MAX_INACTIVE_INTERVAL.equals(name)) {
+                session.setMaxInactiveInterval(Duration.ofSeconds((Integer) value));
+            } else if (name.startsWith(ATTRIBUTE_PREFIX)) {
+                session.setAttribute(name.substring(ATTRIBUTE_PREFIX.length()), value);
+            }
+        });
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        redis.delete(key(id));
+        cache.invalidate(id);
+        publishInvalidation(id);
+    }
+
+    private void publishInvalidation(String id) {
+        try {
+            redis.convertAndSend(properties.getInvalidationChannel(), nodeId + "|" + id);
+        } catch (RuntimeException e) {
+            log.warn("Failed to publish session invalidation: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator > 0 && !body.regionMatches(0, nodeId, 0, separator)) {
+            cache.invalidate(body.substring(separator + 1));
+        }
+    }
+
+    public long getCachedCount() {
+        return cache.estimatedSize();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        loadTimer.bindTo(registry);
+        saveTimer.bindTo(registry);
+        FunctionCounter.builder("session.near.cache", this, NearCacheSessionRepository::getHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("session.near.cache", this, NearCacheSessionRepository::getMissCount)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("session.near.cache.size", this, NearCacheSessionRepository::getCachedCount)
+                .description("Sessions held in memory")
+                .register(registry);
+    }
+
+    private String key(String id) {
+        return keyPrefix + id;
+    }
+
+    /**
+     * Snapshot held in the near cache with the last access time last written to Redis, which decides when
+     * the key expiry is due for a refresh.
+     */
+    private record CachedSession(MapSession session, Instant persistedLastAccessedTime) {
+    }
+
+    public static final class NearCacheSession implements Session {
+
+        private final MapSession delegate;
+        private final Map<String, Object> delta = new HashMap<>();
+        private Instant persistedLastAccessedTime;
+        private boolean isNew;
+        private boolean maxInactiveIntervalChanged;
+        private String originalId;
+
+        NearCacheSession(MapSession delegate, Instant persistedLastAccessedTime, boolean isNew) {
+            this.delegate = delegate;
+            this.persistedLastAccessedTime = persistedLastAccessedTime;
+            this.isNew = isNew;
+        }
+
+        private void markSaved() {
+            delta.clear();
+            isNew = false;
+            maxInactiveIntervalChanged = false;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            if (originalId == null && !isNew) {
+                originalId = delegate.getId();
+            }
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            delegate.setAttribute(attributeName, attributeValue);
+            delta.put(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            delegate.removeAttribute(attributeName);
+            delta.put(attributeName, null);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            delegate.setMaxInactiveInterval(interval);
+            maxInactiveIntervalChanged = true;
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
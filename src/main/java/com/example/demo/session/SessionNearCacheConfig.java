@@ -0,0 +1,52 @@
+package com.example.demo.session;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.session.SessionProperties;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+/**
+ * Replaces the auto-configured indexed Redis session repository, which needs {@code CONFIG SET} for
+ * keyspace notifications, with the {@link NearCacheSessionRepository}.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(prefix = "spring.session.near-cache", name = "enabled", havingValue = "true")
+public class SessionNearCacheConfig {
+    @Bean
+    public RedisTemplate<String, Object> sessionRedisOperations(RedisConnectionFactory redisConnectionFactory) {
+        RedisTemplate<String, Object> template = new RedisTemplate<>();
+        template.setConnectionFactory(redisConnectionFactory);
+        template.setKeySerializer(StringRedisSerializer.UTF_8);
+        template.setHashKeySerializer(StringRedisSerializer.UTF_8);
+        template.setValueSerializer(StringRedisSerializer.UTF_8);
+        template.setHashValueSerializer(new JdkSerializationRedisSerializer(getClass().getClassLoader()));
+        return template;
+    }
+
+    @Bean
+    public NearCacheSessionRepository sessionRepository(RedisTemplate<String, Object> sessionRedisOperations,
+                                                        SessionNearCacheProperties properties,
+                                                        SessionProperties sessionProperties, ServerProperties serverProperties) {
+        return new NearCacheSessionRepository(sessionRedisOperations, properties,
+                sessionProperties.determineTimeout(() -> serverProperties.getServlet().getSession().getTimeout()));
+    }
+
+    @Bean
+    public RedisMessageListenerContainer sessionInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                              NearCacheSessionRepository sessionRepository,
+                                                                              SessionNearCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(sessionRepository, new ChannelTopic(properties.getInvalidationChannel()));
+        return container;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.demo.session;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@ConfigurationProperties("spring.session.near-cache")
+@Component
+@Getter
+@Setter
+public class SessionNearCacheProperties {
+    private boolean enabled;
+    /**
+     * Maximum number of sessions kept in memory.
+     */
+    private long maximumSize = 10000;
+    /**
+     * Time a session stays in memory after it was last written, bounding staleness when an
+     * invalidation message is missed.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+    /**
+     * Minimum time between writes of an unchanged session that only refresh its last access time and expiry.
+     */
+    private Duration touchInterval = Duration.ofMinutes(1);
+    private String namespace = "spring:session";
+    /**
+     * Pub/sub channel on which nodes announce sessions they changed.
+     */
+    private String invalidationChannel = "spring:session:near-cache:invalidate";
+}
@@ -0,0 +1,80 @@
+package com.example.demo.startup;
+
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+/**
+ * Warm-up of the {@code fast-start} profile, which defers connecting the backend clients until the
+ * application is ready.
+ */
+@Configuration
+@Profile("fast-start")
+public class StartupConfig {
+    /**
+     * Keeps the integration channels and handlers eager under {@code spring.main.lazy-initialization},
+     * so the flows are subscribed before the deferred adapters start.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter integrationLazyInitializationExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(MessageChannel.class, MessageHandler.class);
+    }
+
+    @Bean
+    public WarmupRunner warmupRunner(StartupProperties startupProperties) {
+        return new WarmupRunner(startupProperties.getWarmup());
+    }
+
+    @Bean
+    public WarmupHealthIndicator warmupHealthIndicator(WarmupRunner warmupRunner) {
+        return new WarmupHealthIndicator(warmupRunner);
+    }
+
+    /**
+     * Borrows a connection, which makes Hikari start the pool and fill it to {@code minimum-idle}.
+     */
+    @Bean
+    public WarmupTask dataSourceWarmup(ObjectProvider<DataSource> dataSource) {
+        return () -> {
+            DataSource available = dataSource.getIfAvailable();
+            if (available != null) {
+                try (Connection connection = available.getConnection()) {
+                    connection.isValid(5);
+                }
+            }
+        };
+    }
+
+    @Bean
+    public WarmupTask redisWarmup(ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        return () -> {
+            RedisConnectionFactory available = redisConnectionFactory.getIfAvailable();
+            if (available != null) {
+                try (RedisConnection connection = available.getConnection()) {
+                    connection.ping();
+                }
+            }
+        };
+    }
+
+    @Bean
+    public WarmupTask elasticsearchWarmup(ObjectProvider<RestHighLevelClient> restHighLevelClient) {
+        return () -> {
+            RestHighLevelClient available = restHighLevelClient.getIfAvailable();
+            if (available != null && !available.ping(RequestOptions.DEFAULT)) {
+                throw new IllegalStateException("Elasticsearch ping failed");
+            }
+        };
+    }
+}
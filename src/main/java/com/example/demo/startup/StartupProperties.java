@@ -0,0 +1,33 @@
+package com.example.demo.startup;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@ConfigurationProperties("spring.startup")
+@Component
+@Getter
+@Setter
+public class StartupProperties {
+    private Warmup warmup = new Warmup();
+    /**
+     * Number of startup steps listed in the timing report logged once the application is ready.
+     */
+    private int slowestSteps = 20;
+
+    @Getter
+    @Setter
+    public static class Warmup {
+        /**
+         * Number of warm-up tasks running at the same time.
+         */
+        private int parallelism = 4;
+        /**
+         * Warm-up is reported as failed when its tasks have not finished within this time.
+         */
+        private Duration timeout = Duration.ofMinutes(2);
+    }
+}
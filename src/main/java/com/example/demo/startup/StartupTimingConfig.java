@@ -0,0 +1,13 @@
+package com.example.demo.startup;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupTimingConfig {
+
+    @Bean
+    public StartupTimingReporter startupTimingReporter(StartupProperties startupProperties) {
+        return new StartupTimingReporter(startupProperties.getSlowestSteps());
+    }
+}
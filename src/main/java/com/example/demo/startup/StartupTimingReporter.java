@@ -0,0 +1,65 @@
+package com.example.demo.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Logs the slowest startup steps recorded by a {@link BufferingApplicationStartup} once the application is
+ * ready. Steps are ranked by their own time, excluding nested steps, so a bean is not blamed for the
+ * dependencies it pulled in. The full timeline stays available on {@code /actuator/startup}.
+ */
+@Slf4j
+public class StartupTimingReporter implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final int slowestSteps;
+
+    public StartupTimingReporter(int slowestSteps) {
+        this.slowestSteps = slowestSteps;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+        List<StartupTimeline.TimelineEvent> events = startup.getBufferedTimeline().getEvents();
+        Map<Long, Duration> nested = new HashMap<>();
+        for (StartupTimeline.TimelineEvent timelineEvent : events) {
+            Long parentId = timelineEvent.getStartupStep().getParentId();
+            if (parentId != null) {
+                nested.merge(parentId, timelineEvent.getDuration(), Duration::plus);
+            }
+        }
+        String report = events.stream()
+                .map(timelineEvent -> new Step(timelineEvent.getStartupStep(),
+                        timelineEvent.getDuration().minus(nested.getOrDefault(timelineEvent.getStartupStep().getId(), Duration.ZERO))))
+                .sorted(Comparator.comparing(Step::self).reversed())
+                .limit(slowestSteps)
+                .map(Step::toString)
+                .collect(Collectors.joining("\n"));
+        log.info("Started in {} ms, slowest of {} startup steps by own time:\n{}",
+                event.getTimeTaken() == null ? null : event.getTimeTaken().toMillis(), events.size(), report);
+    }
+
+    private record Step(StartupStep step, Duration self) {
+        @Override
+        public String toString() {
+            String tags = StreamSupport.stream(step.getTags().spliterator(), false)
+                    .map(tag -> tag.getKey() + "=" + tag.getValue())
+                    .collect(Collectors.joining(", "));
+            return "%8d ms  %s [%s]".formatted(self.toMillis(), step.getName(), tags);
+        }
+    }
+}
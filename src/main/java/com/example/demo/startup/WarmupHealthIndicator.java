@@ -0,0 +1,28 @@
+package com.example.demo.startup;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * Reports {@code OUT_OF_SERVICE} until the warm-up finished, then {@code UP}. A failed warm-up is reported
+ * {@code UP} as well, with the failed tasks in the details: the clients connect on first use, so the instance
+ * is degraded rather than unable to serve. Included in the readiness group of the {@code fast-start} profile.
+ */
+public class WarmupHealthIndicator extends AbstractHealthIndicator {
+
+    private final WarmupRunner warmupRunner;
+
+    public WarmupHealthIndicator(WarmupRunner warmupRunner) {
+        super("Warm-up health check failed");
+        this.warmupRunner = warmupRunner;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        switch (warmupRunner.getState()) {
+            case COMPLETED, FAILED -> builder.up();
+            case PENDING, RUNNING -> builder.outOfService();
+        }
+        builder.withDetail("state", warmupRunner.getState()).withDetail("tasks", warmupRunner.getResults());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs every {@link WarmupTask} in parallel once the application is ready, that is after the web server
+ * accepts connections. Readiness waits for the outcome through the {@link WarmupHealthIndicator}.
+ */
+@Slf4j
+public class WarmupRunner implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    public enum State {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    public record Result(State state, Long durationMillis, String error) {
+    }
+
+    private final StartupProperties.Warmup properties;
+    private final Map<String, Result> results = new ConcurrentHashMap<>();
+    private volatile State state = State.PENDING;
+    private ExecutorService executor;
+
+    public WarmupRunner(StartupProperties.Warmup properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        run(event.getApplicationContext().getBeansOfType(WarmupTask.class));
+    }
+
+    /**
+     * Starts the tasks unless a warm-up already ran.
+     *
+     * @return the final state, completed once every task finished or the timeout elapsed
+     */
+    public synchronized CompletableFuture<State> run(Map<String, WarmupTask> tasks) {
+        if (state != State.PENDING) {
+            return CompletableFuture.completedFuture(state);
+        }
+        if (tasks.isEmpty()) {
+            state = State.COMPLETED;
+            return CompletableFuture.completedFuture(state);
+        }
+        state = State.RUNNING;
+        long start = System.nanoTime();
+        tasks.keySet().forEach(name -> results.put(name, new Result(State.PENDING, null, null)));
+        executor = Executors.newFixedThreadPool(Math.min(properties.getParallelism(), tasks.size()), new CustomizableThreadFactory("warmup-"));
+        List<CompletableFuture<Void>> futures = tasks.entrySet().stream()
+                .map(task -> CompletableFuture.runAsync(() -> warmUp(task.getKey(), task.getValue()), executor))
+                .toList();
+        return CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .orTimeout(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .handle((ignored, e) -> {
+                    boolean completed = e == null && results.values().stream().allMatch(result -> result.state() == State.COMPLETED);
+                    state = completed ? State.COMPLETED : State.FAILED;
+                    executor.shutdown();
+                    log.info("Warm-up of {} tasks {} in {} ms: {}", tasks.size(), state.name().toLowerCase(),
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), getResults());
+                    return state;
+                });
+    }
+
+    private void warmUp(String name, WarmupTask task) {
+        long start = System.nanoTime();
+        results.put(name, new Result(State.RUNNING, null, null));
+        try {
+            task.warmUp();
+            results.put(name, new Result(State.COMPLETED, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), null));
+        } catch (Exception e) {
+            results.put(name, new Result(State.FAILED, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), e.toString()));
+            log.warn("Warm-up task {} failed", name, e);
+        }
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Map<String, Result> getResults() {
+        return new TreeMap<>(results);
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.demo.startup;
+
+/**
+ * Connects or pre-fills a backend client once the application is ready. Every {@code WarmupTask} bean
+ * is run by the {@link WarmupRunner}, in parallel with the others, and is named after its bean.
+ * Tasks must be idempotent: when the client was already connected during startup they are no-ops.
+ */
+@FunctionalInterface
+public interface WarmupTask {
+    void warmUp() throws Exception;
+}
@@ -0,0 +1,69 @@
+package com.example.demo.accesslog;
+
+import io.undertow.util.Methods;
+import io.undertow.util.Protocols;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+@DisplayName("액세스 로그 링 버퍼 테스트")
+class AccessLogRingBufferTest {
+
+    @DisplayName("순서대로 소비")
+    @Test
+    void TestDrainInOrder() {
+        AccessLogRingBuffer ringBuffer = new AccessLogRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            capture(ringBuffer, "/" + i);
+        }
+
+        List<String> uris = new ArrayList<>();
+        Assertions.assertEquals(5, ringBuffer.drain(entry -> uris.add(entry.getUri()), 100));
+        Assertions.assertEquals(List.of("/0", "/1", "/2", "/3", "/4"), uris);
+        Assertions.assertEquals(0, ringBuffer.getSize());
+    }
+
+    @DisplayName("가득 차면 버리고 집계")
+    @Test
+    void TestDropWhenFull() {
+        AccessLogRingBuffer ringBuffer = new AccessLogRingBuffer(4);
+        for (int i = 0; i < 6; i++) {
+            capture(ringBuffer, "/" + i);
+        }
+        Assertions.assertEquals(2, ringBuffer.getDroppedCount());
+
+        List<String> uris = new ArrayList<>();
+        ringBuffer.drain(entry -> uris.add(entry.getUri()), 100);
+        Assertions.assertEquals(List.of("/0", "/1", "/2", "/3"), uris);
+
+        capture(ringBuffer, "/6");
+        ringBuffer.drain(entry -> uris.add(entry.getUri()), 100);
+        Assertions.assertEquals("/6", uris.get(uris.size() - 1));
+    }
+
+    @DisplayName("필드 지연 변환")
+    @Test
+    void TestLazyFields() {
+        AccessLogRingBuffer ringBuffer = new AccessLogRingBuffer(2);
+        capture(ringBuffer, "/lazy");
+        Assertions.assertEquals(1, ringBuffer.drain(entry -> {
+            Assertions.assertEquals("127.0.0.1", entry.getIp());
+            Assertions.assertEquals("GET", entry.getMethod());
+            Assertions.assertEquals("HTTP/1.1", entry.getProtocol());
+            Assertions.assertEquals(1_672_531_200_000L, entry.toAccessLog().getCreated().toEpochMilli());
+        }, 1));
+    }
+
+    private static void capture(AccessLogRingBuffer ringBuffer, String uri) {
+        AccessLogEntry entry = ringBuffer.claim();
+        if (entry != null) {
+            entry.capture(new InetSocketAddress("127.0.0.1", 8080), Methods.GET, Protocols.HTTP_1_1,
+                    "curl/7.87.0", "1", uri, 1_672_531_200_000L, 200, 5);
+            ringBuffer.publish(entry);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("지연 등록 타이머 테스트")
+class DeferredTimerTest {
+
+    @DisplayName("바인딩 전 기록은 무시")
+    @Test
+    void TestUnbound() {
+        DeferredTimer timer = new DeferredTimer("test.timer", "Test timer", "outcome");
+        timer.record(1, TimeUnit.SECONDS, "success");
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        timer.bindTo(registry);
+        Assertions.assertNull(registry.find("test.timer").timer());
+    }
+
+    @DisplayName("태그 조합마다 한 번만 등록")
+    @Test
+    void TestTaggedTimers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeferredTimer timer = new DeferredTimer("test.timer", "Test timer", "outcome");
+        timer.bindTo(registry);
+        timer.record(1, TimeUnit.SECONDS, "success");
+        timer.record(2, TimeUnit.SECONDS, "success");
+        timer.recordSince(System.nanoTime(), "error");
+
+        Timer success = registry.get("test.timer").tag("outcome", "success").timer();
+        Assertions.assertEquals(2, success.count());
+        Assertions.assertEquals(3, success.totalTime(TimeUnit.SECONDS));
+        Assertions.assertEquals(1, registry.get("test.timer").tag("outcome", "error").timer().count());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> timer.record(1, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("태그 없는 타이머는 바인딩 시 등록")
+    @Test
+    void TestUntaggedTimer() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeferredTimer timer = new DeferredTimer("test.timer", "Test timer");
+        timer.bindTo(registry);
+        Assertions.assertEquals(0, registry.get("test.timer").timer().count());
+        timer.recordSince(System.nanoTime());
+        Assertions.assertEquals(1, registry.get("test.timer").timer().count());
+    }
+
+    @DisplayName("두 태그 조합마다 한 번만 등록")
+    @Test
+    void TestTwoTagTimers() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        DeferredTimer timer = new DeferredTimer("test.timer", "Test timer", "table", "outcome");
+        timer.bindTo(registry);
+        timer.record(1, TimeUnit.SECONDS, "trade", "success");
+        timer.record(1, TimeUnit.SECONDS, "trade", "success");
+        timer.record(1, TimeUnit.SECONDS, "trade", "error");
+        timer.recordSince(System.nanoTime(), "quote", "success");
+
+        Assertions.assertEquals(2, registry.get("test.timer").tags("table", "trade", "outcome", "success").timer().count());
+        Assertions.assertEquals(1, registry.get("test.timer").tags("table", "trade", "outcome", "error").timer().count());
+        Assertions.assertEquals(1, registry.get("test.timer").tags("table", "quote", "outcome", "success").timer().count());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> timer.record(1, TimeUnit.SECONDS, "trade"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new DeferredTimer("test.timer", "Test timer", "a", "b", "c"));
+    }
+}
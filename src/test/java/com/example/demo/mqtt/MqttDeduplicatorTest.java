@@ -0,0 +1,99 @@
+package com.example.demo.mqtt;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@DisplayName("MQTT 중복 제거 테스트")
+class MqttDeduplicatorTest {
+
+    @DisplayName("재전송된 메시지 제거")
+    @Test
+    void TestRedelivery() {
+        MqttDeduplicator deduplicator = new MqttDeduplicator(new MqttProperties.Dedup(), null);
+        List<Message<?>> batch = List.of(message("test", "1"), message("test", "2"), message("other", "1"));
+        Assertions.assertSame(batch, deduplicator.filter(batch));
+
+        // [NOTE] 재연결 후 브로커가 같은 메시지를 다시 보내면 새 메시지만 남습니다.
+        List<Message<?>> redelivered = deduplicator.filter(List.of(message("test", "2"), message("test", "3"), message("test", "1")));
+        Assertions.assertEquals(1, redelivered.size());
+        Assertions.assertEquals("3", new String((byte[]) redelivered.get(0).getPayload(), StandardCharsets.UTF_8));
+        Assertions.assertEquals(4, deduplicator.getUniqueCount());
+        Assertions.assertEquals(2, deduplicator.getDuplicateCount());
+    }
+
+    @DisplayName("키 헤더 기준 중복 제거")
+    @Test
+    void TestKeyHeader() {
+        MqttProperties.Dedup properties = new MqttProperties.Dedup();
+        properties.setKeyHeader("messageId");
+        MqttDeduplicator deduplicator = new MqttDeduplicator(properties, null);
+        Message<?> first = MessageBuilder.fromMessage(message("test", "a")).setHeader("messageId", "42").build();
+        Message<?> second = MessageBuilder.fromMessage(message("test", "b")).setHeader("messageId", "42").build();
+        Assertions.assertEquals(List.of(first), deduplicator.filter(List.of(first, second)));
+    }
+
+    @DisplayName("키 헤더가 없으면 페이로드 기준 중복 제거")
+    @Test
+    void TestMissingKeyHeader() {
+        MqttProperties.Dedup properties = new MqttProperties.Dedup();
+        properties.setKeyHeader("messageId");
+        MqttDeduplicator deduplicator = new MqttDeduplicator(properties, null);
+        // [NOTE] 헤더가 없는 메시지끼리 하나의 키로 묶이지 않아야 합니다.
+        List<Message<?>> batch = List.of(message("test", "a"), message("test", "b"), message("test", "a"));
+        Assertions.assertEquals(batch.subList(0, 2), deduplicator.filter(batch));
+    }
+
+    @DisplayName("윈도우가 지나면 키 만료")
+    @Test
+    void TestWindowRotation() {
+        AtomicLong clock = new AtomicLong(1_672_531_200_000L);
+        RotatingBloomFilter filter = new RotatingBloomFilter(Duration.ofMinutes(5), 5, 1000, 0.001, clock::get);
+        Assertions.assertTrue(filter.add(hash("42")));
+        clock.addAndGet(Duration.ofMinutes(4).toMillis());
+        Assertions.assertTrue(filter.add(hash("7")));
+        Assertions.assertFalse(filter.add(hash("42")));
+
+        // [NOTE] 중복은 다시 기록되지 않으므로 반복 수신되어도 처음 수신부터 윈도우가 지나면 만료됩니다.
+        clock.addAndGet(Duration.ofMinutes(2).toMillis());
+        Assertions.assertFalse(filter.mightContain(hash("42")));
+        Assertions.assertTrue(filter.mightContain(hash("7")));
+        Assertions.assertTrue(filter.add(hash("42")));
+    }
+
+    @DisplayName("오탐률이 예산 이내")
+    @Test
+    void TestFalsePositiveBudget() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(Duration.ofMinutes(5), 5, 100_000, 0.001, () -> 0L);
+        // [NOTE] 한 세그먼트에 윈도우 전체의 예상 메시지가 몰린 경우입니다.
+        for (long i = 0; i < 20_000; i++) {
+            filter.add(hash(Long.toString(i)));
+        }
+        int falsePositives = 0;
+        for (long i = 20_000; i < 120_000; i++) {
+            if (filter.mightContain(hash(Long.toString(i)))) {
+                falsePositives++;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 100, "false positives: " + falsePositives);
+        Assertions.assertTrue(filter.expectedFpp() > 0 && filter.expectedFpp() < 0.001);
+    }
+
+    private static long hash(String key) {
+        return MqttDeduplicator.hash(key.getBytes(StandardCharsets.UTF_8), 0);
+    }
+
+    private static Message<byte[]> message(String topic, String payload) {
+        return MessageBuilder.withPayload(payload.getBytes(StandardCharsets.UTF_8))
+                .setHeader(MqttHeaders.RECEIVED_TOPIC, topic)
+                .build();
+    }
+}
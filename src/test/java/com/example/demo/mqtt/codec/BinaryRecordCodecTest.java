@@ -0,0 +1,59 @@
+package com.example.demo.mqtt.codec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+@DisplayName("바이너리 레코드 코덱 테스트")
+class BinaryRecordCodecTest {
+
+    private final BinaryRecordPool pool = new BinaryRecordPool(4);
+    private final BinaryRecordCodec codec = new BinaryRecordCodec(pool);
+
+    @DisplayName("인코딩 후 디코딩")
+    @Test
+    void TestRoundTrip() {
+        BinaryRecord source = new BinaryRecord();
+        source.setSchemaId(7);
+        source.setTimestamp(1_672_531_200_000_000_000L);
+        source.addLong(42L).addDouble(3.14).addInt(-1).addBoolean(true);
+
+        BinaryRecord decoded = codec.decode(BinaryRecordCodec.encode(source));
+
+        Assertions.assertEquals(7, decoded.getSchemaId());
+        Assertions.assertEquals(1_672_531_200_000_000_000L, decoded.getTimestamp());
+        Assertions.assertEquals(4, decoded.getFieldCount());
+        Assertions.assertEquals(42L, decoded.getLong(0));
+        Assertions.assertEquals(3.14, decoded.getDouble(1));
+        Assertions.assertEquals(-1, decoded.getInt(2));
+        Assertions.assertTrue(decoded.getBoolean(3));
+    }
+
+    @DisplayName("레코드 재사용")
+    @Test
+    void TestPooledRecord() {
+        BinaryRecord source = new BinaryRecord().addLong(1L);
+        byte[] payload = BinaryRecordCodec.encode(source);
+
+        BinaryRecord first = codec.decode(payload);
+        codec.release(first);
+        Assertions.assertEquals(1, pool.size());
+
+        BinaryRecord second = codec.decode(ByteBuffer.wrap(payload));
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1, second.getFieldCount());
+    }
+
+    @DisplayName("잘못된 페이로드 거부")
+    @Test
+    void TestInvalidPayload() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> codec.decode("Simple Message".getBytes()));
+
+        byte[] truncated = BinaryRecordCodec.encode(new BinaryRecord().addLong(1L));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> codec.decode(ByteBuffer.wrap(truncated, 0, truncated.length - 4)));
+        Assertions.assertEquals(1, pool.size());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.startup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@DisplayName("워밍업 실행기 테스트")
+class WarmupRunnerTest {
+
+    @DisplayName("작업 병렬 실행 후 준비 완료")
+    @Test
+    void TestParallelWarmup() throws Exception {
+        WarmupRunner warmupRunner = new WarmupRunner(new StartupProperties.Warmup());
+        WarmupHealthIndicator healthIndicator = new WarmupHealthIndicator(warmupRunner);
+        Assertions.assertEquals(Status.OUT_OF_SERVICE, healthIndicator.health().getStatus());
+
+        // [NOTE] 두 작업이 서로를 기다리므로 병렬로 실행되지 않으면 완료되지 않는다.
+        CountDownLatch latch = new CountDownLatch(2);
+        WarmupTask task = () -> {
+            latch.countDown();
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Tasks did not run in parallel");
+            }
+        };
+        Map<String, WarmupTask> tasks = new LinkedHashMap<>();
+        tasks.put("first", task);
+        tasks.put("second", task);
+
+        Assertions.assertEquals(WarmupRunner.State.COMPLETED, warmupRunner.run(tasks).get(10, TimeUnit.SECONDS));
+        Assertions.assertEquals(Status.UP, healthIndicator.health().getStatus());
+        Assertions.assertEquals(WarmupRunner.State.COMPLETED, warmupRunner.getResults().get("first").state());
+        Assertions.assertEquals(WarmupRunner.State.COMPLETED, warmupRunner.run(tasks).get());
+        warmupRunner.destroy();
+    }
+
+    @DisplayName("실패 또는 시간 초과 시 성능 저하 상태로 준비 완료")
+    @Test
+    void TestFailedWarmup() throws Exception {
+        StartupProperties.Warmup properties = new StartupProperties.Warmup();
+        properties.setTimeout(Duration.ofMillis(200));
+        WarmupRunner warmupRunner = new WarmupRunner(properties);
+        Map<String, WarmupTask> tasks = new LinkedHashMap<>();
+        tasks.put("failing", () -> {
+            throw new IOException("connection refused");
+        });
+        tasks.put("hanging", () -> Thread.sleep(5000));
+
+        Assertions.assertEquals(WarmupRunner.State.FAILED, warmupRunner.run(tasks).get(10, TimeUnit.SECONDS));
+        // [NOTE] 클라이언트는 처음 사용할 때 연결되므로 실패한 작업은 상세 정보로만 보고합니다.
+        Health health = new WarmupHealthIndicator(warmupRunner).health();
+        Assertions.assertEquals(Status.UP, health.getStatus());
+        Assertions.assertEquals(WarmupRunner.State.FAILED, health.getDetails().get("state"));
+        Assertions.assertEquals(WarmupRunner.State.FAILED, warmupRunner.getResults().get("failing").state());
+        Assertions.assertTrue(warmupRunner.getResults().get("failing").error().contains("connection refused"));
+        Assertions.assertEquals(WarmupRunner.State.RUNNING, warmupRunner.getResults().get("hanging").state());
+        warmupRunner.destroy();
+    }
+}
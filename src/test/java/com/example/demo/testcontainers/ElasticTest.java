@@ -1,10 +1,25 @@
 package com.example.demo.testcontainers;
 
 
+import com.example.demo.elastic.AccessLog;
+import com.example.demo.elastic.AccessLogExporter;
+import com.example.demo.elastic.AccessLogIndexer;
+import com.example.demo.elastic.AccessLogLifecycleConfig;
+import com.example.demo.elastic.AccessLogLifecycleManager;
+import com.example.demo.elastic.AccessLogProperties;
+import com.example.demo.elastic.AccessLogRollupConfig;
+import com.example.demo.elastic.AccessLogRollupManager;
+import com.example.demo.elastic.AccessLogRollupQuery;
+import com.example.demo.export.CsvExportWriter;
+import com.example.demo.export.ExportProperties;
 import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.client.core.CountResponse;
 import org.elasticsearch.client.core.MainResponse;
 import org.elasticsearch.client.indices.*;
 import org.elasticsearch.cluster.metadata.ComposableIndexTemplate;
@@ -12,9 +27,11 @@ import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Template;
 import org.elasticsearch.common.compress.CompressedXContent;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.data.elasticsearch.DataElasticsearchTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -28,7 +45,12 @@ import org.testcontainers.shaded.com.google.common.collect.MapDifference;
 import org.testcontainers.shaded.com.google.common.collect.Maps;
 import org.testcontainers.utility.DockerImageName;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -40,6 +62,8 @@ import java.util.Set;
 @DisplayName("엘라스틱서치 통합 테스트")
 @TestMethodOrder(value = MethodOrderer.OrderAnnotation.class)
 @DataElasticsearchTest
+@Import({AccessLogProperties.class, AccessLogIndexer.class, ExportProperties.class, AccessLogExporter.class, AccessLogLifecycleConfig.class,
+        AccessLogRollupConfig.class})
 @Testcontainers
 class ElasticTest {
 
@@ -60,10 +84,29 @@ class ElasticTest {
         registry.add("spring.elasticsearch.uris", elasticsearch::getHttpHostAddress);
         registry.add("spring.elasticsearch.username", () -> "elastic");
         registry.add("spring.elasticsearch.password", () -> "elasticpass");
+        registry.add("spring.export.page-size", () -> 2);
+        registry.add("spring.elasticsearch.access-log.lifecycle.enabled", () -> true);
+        registry.add("spring.elasticsearch.access-log.lifecycle.rollover-size", () -> "1B");
+        registry.add("spring.elasticsearch.access-log.lifecycle.close-delay", () -> "0s");
+        registry.add("spring.elasticsearch.access-log.lifecycle.closed-replicas", () -> 0);
+        registry.add("spring.elasticsearch.access-log.rollup.enabled", () -> true);
+        registry.add("spring.elasticsearch.access-log.rollup.delay", () -> "0s");
+        registry.add("spring.elasticsearch.access-log.rollup.backfill", () -> "1d");
+        registry.add("spring.elasticsearch.access-log.rollup.page-size", () -> 2);
     }
 
     @Autowired
     private RestHighLevelClient restHighLevelClient;
+    @Autowired
+    private AccessLogIndexer accessLogIndexer;
+    @Autowired
+    private AccessLogExporter accessLogExporter;
+    @Autowired
+    private AccessLogLifecycleManager accessLogLifecycleManager;
+    @Autowired
+    private AccessLogRollupManager accessLogRollupManager;
+    @Autowired
+    private AccessLogRollupQuery accessLogRollupQuery;
 
     @Order(0)
     @DisplayName("버전 체크")
@@ -139,5 +182,137 @@ class ElasticTest {
         });
     }
 
+    @Order(4)
+    @DisplayName("벌크 색인")
+    @Test
+    void TestBulkIndex() {
+        Assertions.assertDoesNotThrow(() -> {
+            Instant now = Instant.now();
+            Instant lastMonth = ZonedDateTime.now(ZoneOffset.UTC).minusMonths(1).toInstant();
+            List<AccessLog> accessLogs = List.of(
+                    new AccessLog("127.0.0.1", "GET", "curl/7.87.0", "HTTP/1.1", "1", "/", now),
+                    new AccessLog("127.0.0.1", "POST", "curl/7.87.0", "HTTP/1.1", "1", "/login", now),
+                    new AccessLog("127.0.0.1", "GET", "curl/7.87.0", "HTTP/1.1", "2", "/", lastMonth));
+            accessLogs.forEach(accessLogIndexer::index);
+            accessLogIndexer.flush();
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (accessLogIndexer.getIndexedCount() + accessLogIndexer.getFailedCount() < accessLogs.size()
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals(accessLogs.size(), accessLogIndexer.getIndexedCount());
+
+            restHighLevelClient.indices().refresh(new RefreshRequest("access_log-*"), RequestOptions.DEFAULT);
+            CountResponse current = restHighLevelClient.count(new CountRequest(accessLogIndexer.indexName(accessLogs.get(0))), RequestOptions.DEFAULT);
+            CountResponse previous = restHighLevelClient.count(new CountRequest(accessLogIndexer.indexName(accessLogs.get(2))), RequestOptions.DEFAULT);
+            Assertions.assertEquals(2, current.getCount());
+            Assertions.assertEquals(1, previous.getCount());
+        });
+    }
+
+    @Order(5)
+    @DisplayName("스트리밍 내보내기")
+    @Test
+    void TestStreamingExport() {
+        Assertions.assertDoesNotThrow(() -> {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            long exported = accessLogExporter.export("access_log-*", null, null, new CsvExportWriter(outputStream));
+            Assertions.assertEquals(3, exported);
+
+            List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+            Assertions.assertEquals(4, lines.size());
+            Assertions.assertEquals(String.join(",", AccessLogExporter.COLUMNS), lines.get(0));
+            // [NOTE] created 오름차순으로 지난 달 로그가 먼저 출력됩니다.
+            Assertions.assertTrue(lines.get(1).contains(",2,/,"));
+        });
+    }
 
+    @Order(6)
+    @DisplayName("인덱스 수명 주기 관리")
+    @Test
+    void TestIndexLifecycle() {
+        Assertions.assertDoesNotThrow(() -> {
+            accessLogLifecycleManager.maintain();
+
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            String next = accessLogIndexer.monthlyIndexName(current.plusMonths(1));
+            Assertions.assertTrue(restHighLevelClient.indices().exists(new GetIndexRequest(next), RequestOptions.DEFAULT));
+
+            // [NOTE] 현재 월 인덱스가 롤오버 크기를 넘어 다음 세대 인덱스로 적재됩니다.
+            AccessLog accessLog = new AccessLog("127.0.0.1", "GET", "curl/7.87.0", "HTTP/1.1", "1", "/", Instant.now());
+            Assertions.assertEquals(accessLogIndexer.monthlyIndexName(current) + "-1", accessLogIndexer.indexName(accessLog));
+
+            String previous = accessLogIndexer.monthlyIndexName(current.minusMonths(1));
+            String blocked = restHighLevelClient.indices()
+                    .getSettings(new GetSettingsRequest().indices(previous).names("index.blocks.write"), RequestOptions.DEFAULT)
+                    .getSetting(previous, "index.blocks.write");
+            Assertions.assertEquals("true", blocked);
+            Assertions.assertTrue(accessLogLifecycleManager.listIndices().stream()
+                    .anyMatch(index -> index.name().equals(accessLogIndexer.monthlyIndexName(current) + "-1")));
+        });
+    }
+
+    @Order(7)
+    @DisplayName("증분 롤업 및 롤업 기반 조회")
+    @Test
+    void TestRollup() {
+        // [NOTE] TestIndexLifecycle이 지난달 인덱스의 쓰기를 막았으므로 이번 달 안의 닫힌 두 시간 구간에만 적재합니다.
+        long hour = Duration.ofHours(1).toMillis();
+        long now = System.currentTimeMillis();
+        long monthStart = YearMonth.now(ZoneOffset.UTC).atDay(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        Instant base = Instant.ofEpochMilli(Math.max(Math.floorDiv(now - 3 * hour, hour) * hour, monthStart));
+        Assumptions.assumeTrue(base.toEpochMilli() + 2 * hour <= now, "이번 달이 시작된 지 두 시간이 지나지 않았습니다.");
+        Assertions.assertDoesNotThrow(() -> {
+            List<AccessLog> accessLogs = List.of(
+                    new AccessLog("127.0.0.1", "GET", "curl/7.87.0", "HTTP/1.1", "1", "/", base.plusSeconds(60), 200, 5L),
+                    new AccessLog("127.0.0.1", "GET", "curl/7.87.0", "HTTP/1.1", "1", "/", base.plusSeconds(70), 200, 120L),
+                    new AccessLog("127.0.0.1", "POST", "curl/7.87.0", "HTTP/1.1", "1", "/login", base.plusSeconds(120), 302, 30L),
+                    new AccessLog("127.0.0.1", "GET", "curl/7.87.0", "HTTP/1.1", "2", "/", base.plusSeconds(3660), 200, 700L));
+            long indexed = accessLogIndexer.getIndexedCount();
+            accessLogs.forEach(accessLogIndexer::index);
+            accessLogIndexer.flush();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (accessLogIndexer.getIndexedCount() < indexed + accessLogs.size() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(100);
+            }
+            restHighLevelClient.indices().refresh(new RefreshRequest("access_log-*"), RequestOptions.DEFAULT);
+
+            Assertions.assertTrue(accessLogRollupManager.rollup() > 0);
+            AccessLogRollupManager.Checkpoint checkpoint = accessLogRollupManager.checkpoint(Duration.ofMinutes(1));
+            Assertions.assertNotNull(checkpoint);
+            Assertions.assertNull(checkpoint.afterKey());
+
+            // [NOTE] 문서 ID가 결정적이므로 다시 실행해도 롤업 문서가 늘어나지 않습니다.
+            restHighLevelClient.indices().refresh(new RefreshRequest("access_log_rollup"), RequestOptions.DEFAULT);
+            CountRequest minuteRollups = new CountRequest("access_log_rollup").query(QueryBuilders.boolQuery()
+                    .filter(QueryBuilders.termQuery("interval", "1m"))
+                    .filter(QueryBuilders.rangeQuery("timestamp").gte(base.toEpochMilli()).lt(base.toEpochMilli() + 2 * hour)));
+            Assertions.assertEquals(3, restHighLevelClient.count(minuteRollups, RequestOptions.DEFAULT).getCount());
+            accessLogRollupManager.rollup();
+            restHighLevelClient.indices().refresh(new RefreshRequest("access_log_rollup"), RequestOptions.DEFAULT);
+            Assertions.assertEquals(3, restHighLevelClient.count(minuteRollups, RequestOptions.DEFAULT).getCount());
+
+            AccessLogRollupQuery.Traffic closed = accessLogRollupQuery.traffic(base, base.plusMillis(2 * hour), "/", "GET");
+            Assertions.assertEquals(List.of("1h"), closed.segments().stream().map(AccessLogRollupQuery.Segment::source).toList());
+            AccessLogRollupQuery.Row row = closed.rows().get(0);
+            Assertions.assertEquals(3, row.count());
+            Assertions.assertEquals(825, row.durationSum());
+            Assertions.assertEquals(700, row.durationMax());
+            Assertions.assertEquals(1, row.latency().get("lt_10"));
+            Assertions.assertEquals(1, row.latency().get("lt_250"));
+            Assertions.assertEquals(1, row.latency().get("lt_1000"));
+
+            // [NOTE] 롤업이 아직 덮지 않은 최근 구간은 원본 문서에서 집계되어 합계가 원본과 같습니다.
+            Instant to = Instant.now().plusSeconds(60);
+            AccessLogRollupQuery.Traffic traffic = accessLogRollupQuery.traffic(base, to, "/", "GET");
+            Assertions.assertEquals("raw", traffic.segments().get(traffic.segments().size() - 1).source());
+            CountResponse raw = restHighLevelClient.count(new CountRequest("access_log-*").query(QueryBuilders.boolQuery()
+                    .filter(QueryBuilders.termQuery("uri", "/"))
+                    .filter(QueryBuilders.termQuery("method", "GET"))
+                    .filter(QueryBuilders.rangeQuery("created").format("epoch_millis").gte(base.toEpochMilli()).lt(to.toEpochMilli()))),
+                    RequestOptions.DEFAULT);
+            Assertions.assertEquals(raw.getCount(), traffic.rows().get(0).count());
+        });
+    }
 }
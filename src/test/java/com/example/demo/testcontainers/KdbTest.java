@@ -1,19 +1,43 @@
 package com.example.demo.testcontainers;
 
+import com.example.demo.export.NdjsonExportWriter;
+import com.example.demo.kdb.KdbColumnarWriter;
+import com.example.demo.kdb.KdbConnectionPool;
+import com.example.demo.kdb.KdbPipeline;
+import com.example.demo.kdb.KdbQueryCache;
+import com.example.demo.kdb.KdbTableBuffer;
+import com.example.demo.kdb.KdbTableExporter;
+import com.example.demo.mqtt.codec.BinaryRecord;
+import com.example.demo.mqtt.codec.BinaryRecordCodec;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kx.c;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.BindMode;
 import org.testcontainers.containers.GenericContainer;
 import org.testcontainers.images.builder.ImageFromDockerfile;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @DisplayName("KDB+ 통합 테스트")
@@ -23,6 +47,8 @@ import java.util.TimeZone;
 class KdbTest {
 
     private static final int KDB_PORT = 5000;
+    private static final int MOSQUITTO_PORT = 1883;
+    private static final String MQTT_TOPIC = "kdb/trade";
 
     @Container
     private static final GenericContainer<?> kdb =
@@ -32,6 +58,44 @@ class KdbTest {
                     .withClasspathResourceMapping("docker/kdb/kc.lic", "/opt/kx/kc.lic", BindMode.READ_ONLY)
                     .withExposedPorts(KDB_PORT);
 
+    @Container
+    private static final GenericContainer<?> mosquitto =
+            new GenericContainer<>(DockerImageName.parse("eclipse-mosquitto:2.0.10"))
+                    .withClasspathResourceMapping("conf/mosquitto.conf", "/mosquitto/config/mosquitto.conf", BindMode.READ_ONLY)
+                    .withExposedPorts(MOSQUITTO_PORT);
+
+    @DynamicPropertySource
+    static void registerKdbProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.kdb.host", kdb::getHost);
+        registry.add("spring.kdb.port", () -> kdb.getMappedPort(KDB_PORT));
+        registry.add("spring.kdb.writer.enabled", () -> true);
+        registry.add("spring.kdb.query-cache.enabled", () -> true);
+        registry.add("spring.export.chunk-size", () -> 10);
+        registry.add("spring.mqtt.host", mosquitto::getHost);
+        registry.add("spring.mqtt.port", () -> mosquitto.getMappedPort(MOSQUITTO_PORT));
+        registry.add("spring.mqtt.topics", () -> MQTT_TOPIC);
+        registry.add("spring.mqtt.codecs.[%s]".formatted(MQTT_TOPIC), () -> BinaryRecordCodec.NAME);
+        registry.add("spring.kdb.writer.topics.[%s]".formatted(MQTT_TOPIC), () -> "trade");
+        String[][] columns = {{"time", "timestamp"}, {"sym", "symbol"}, {"price", "float"}, {"size", "long"}};
+        for (int i = 0; i < columns.length; i++) {
+            String name = columns[i][0];
+            String type = columns[i][1];
+            registry.add("spring.kdb.writer.tables.trade.columns[%d].name".formatted(i), () -> name);
+            registry.add("spring.kdb.writer.tables.trade.columns[%d].type".formatted(i), () -> type);
+        }
+    }
+
+    @Autowired
+    private KdbConnectionPool kdbConnectionPool;
+    @Autowired
+    private KdbColumnarWriter kdbColumnarWriter;
+    @Autowired
+    private KdbQueryCache kdbQueryCache;
+    @Autowired
+    private KdbTableExporter kdbTableExporter;
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private c c;
 
     @BeforeEach
@@ -99,4 +163,156 @@ class KdbTest {
             Assertions.assertEquals(1L, valid);
         });
     }
+
+    @Order(4)
+    @DisplayName("커넥션 풀 쿼리")
+    @Test
+    void TestPoolQuery() {
+        Assertions.assertDoesNotThrow(() -> {
+            Assertions.assertEquals(1L, kdbConnectionPool.query("1"));
+            Assertions.assertEquals(3L, kdbConnectionPool.query("{x+y}", 1L, 2L));
+            Assertions.assertEquals(0, kdbConnectionPool.getActiveCount());
+            Assertions.assertTrue(kdbConnectionPool.getIdleCount() > 0);
+        });
+    }
+
+    @Order(5)
+    @DisplayName("비동기 파이프라인")
+    @Test
+    void TestPipeline() {
+        Assertions.assertDoesNotThrow(() -> {
+            int count = 5000;
+            kdbConnectionPool.query("cnt:0");
+            try (KdbPipeline pipeline = kdbConnectionPool.pipeline()) {
+                for (int i = 0; i < count; i++) {
+                    pipeline.ks("{`cnt set cnt+x}", 1L);
+                }
+            }
+            Assertions.assertEquals((long) count, kdbConnectionPool.query("cnt"));
+        });
+    }
+
+    @Order(6)
+    @DisplayName("컬럼 단위 배치 적재")
+    @Test
+    void TestColumnarWriter() {
+        Assertions.assertDoesNotThrow(() -> {
+            int count = 25000;
+            kdbConnectionPool.query("trade:([] time:`timestamp$(); sym:`symbol$(); price:`float$(); size:`long$())");
+
+            long started = Instant.now().toEpochMilli() * 1_000_000L;
+            KdbTableBuffer buffer = kdbColumnarWriter.buffer("trade");
+            for (int i = 0; i < count; i++) {
+                buffer.beginRow();
+                buffer.setTimestamp(0, started + i).setSymbol(1, "AAPL").setFloat(2, i * 0.5).setLong(3, i);
+                buffer.endRow();
+            }
+            kdbColumnarWriter.flush();
+
+            Assertions.assertEquals((long) count, kdbConnectionPool.query("count trade"));
+            long[] sizes = (long[]) kdbConnectionPool.query("exec size from trade");
+            for (int i = 0; i < count; i++) {
+                Assertions.assertEquals(i, sizes[i]);
+            }
+            Assertions.assertEquals(Boolean.TRUE, kdbConnectionPool.query("all 0<deltas exec time from trade"));
+            Instant first = (Instant) kdbConnectionPool.query("first exec time from trade");
+            Assertions.assertEquals(started / 1_000_000L, first.toEpochMilli());
+            Assertions.assertEquals((long) count, kdbColumnarWriter.getWrittenCount());
+        });
+    }
+
+    @Order(7)
+    @DisplayName("쿼리 결과 캐시")
+    @Test
+    void TestQueryCache() {
+        Assertions.assertDoesNotThrow(() -> {
+            kdbConnectionPool.query("trade:([] time:`timestamp$(); sym:`symbol$(); price:`float$(); size:`long$())");
+            List<String> tables = List.of("trade");
+
+            Assertions.assertEquals(0L, kdbQueryCache.query(Duration.ofMinutes(1), tables, "count trade"));
+            // [NOTE] 공백만 다른 표현식은 같은 캐시 항목을 사용합니다.
+            Assertions.assertEquals(0L, kdbQueryCache.query(Duration.ofMinutes(1), tables, "  count   trade "));
+            Assertions.assertEquals(1L, kdbQueryCache.getMissCount());
+            Assertions.assertEquals(1L, kdbQueryCache.getHitCount());
+
+            KdbTableBuffer buffer = kdbColumnarWriter.buffer("trade");
+            buffer.beginRow();
+            buffer.setTimestamp(0, Instant.now().toEpochMilli() * 1_000_000L).setSymbol(1, "AAPL").setFloat(2, 1.5).setLong(3, 1);
+            buffer.endRow();
+            kdbColumnarWriter.flush();
+
+            // [NOTE] 테이블 적재 후 캐시가 무효화됩니다.
+            Assertions.assertEquals(1L, kdbQueryCache.query(Duration.ofMinutes(1), tables, "count trade"));
+            Assertions.assertEquals(2L, kdbQueryCache.getMissCount());
+
+            Assertions.assertEquals(3L, kdbQueryCache.query(Duration.ofMillis(100), List.of(), "{x+y}", 1L, 2L));
+            Thread.sleep(200);
+            Assertions.assertEquals(3L, kdbQueryCache.query(Duration.ofMillis(100), List.of(), "{x+y}", 1L, 2L));
+            Assertions.assertEquals(4L, kdbQueryCache.getMissCount());
+        });
+    }
+
+    @Order(8)
+    @DisplayName("테이블 분할 내보내기")
+    @Test
+    void TestTableExport() {
+        Assertions.assertDoesNotThrow(() -> {
+            int count = 25;
+            kdbConnectionPool.query("trade:([] time:`timestamp$(); sym:`symbol$(); price:`float$(); size:`long$())");
+            kdbConnectionPool.query("{`trade insert (x#.z.p; x#`AAPL; `float$til x; til x)}", (long) count);
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            long exported = kdbTableExporter.export("trade", new NdjsonExportWriter(objectMapper, outputStream));
+            Assertions.assertEquals(count, exported);
+
+            List<String> lines = outputStream.toString(StandardCharsets.UTF_8).lines().toList();
+            Assertions.assertEquals(count, lines.size());
+            for (int i = 0; i < count; i++) {
+                JsonNode row = objectMapper.readTree(lines.get(i));
+                Assertions.assertEquals("AAPL", row.get("sym").asText());
+                Assertions.assertEquals(i, row.get("size").asLong());
+            }
+            Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> kdbTableExporter.export("trade;delete trade from `.", new NdjsonExportWriter(objectMapper, outputStream)));
+        });
+    }
+
+    @Order(9)
+    @DisplayName("MQTT 수신 메시지 적재")
+    @Test
+    void TestMqttSink() {
+        Assertions.assertDoesNotThrow(() -> {
+            int count = 100;
+            kdbConnectionPool.query("trade:([] time:`timestamp$(); sym:`symbol$(); price:`float$(); size:`long$())");
+
+            long started = Instant.now().toEpochMilli() * 1_000_000L;
+            String broker = "tcp://%s:%s".formatted(mosquitto.getHost(), mosquitto.getMappedPort(MOSQUITTO_PORT));
+            MqttClient mqttClient = new MqttClient(broker, UUID.randomUUID().toString(), new MemoryPersistence());
+            try {
+                mqttClient.connect();
+                BinaryRecord record = new BinaryRecord();
+                for (int i = 0; i < count; i++) {
+                    record.clear();
+                    record.setTimestamp(started + i);
+                    record.addDouble(i * 0.5).addLong(i);
+                    MqttMessage message = new MqttMessage(BinaryRecordCodec.encode(record));
+                    message.setQos(1);
+                    mqttClient.publish(MQTT_TOPIC, message);
+                }
+            } finally {
+                mqttClient.disconnect();
+                mqttClient.close();
+            }
+
+            // [NOTE] 수신 배치가 KdbMqttSink를 거쳐 테이블에 적재될 때까지 기다립니다.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while ((Long) kdbConnectionPool.query("count trade") < count && System.nanoTime() < deadline) {
+                kdbColumnarWriter.flush();
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals((long) count, kdbConnectionPool.query("count trade"));
+            Assertions.assertEquals(MQTT_TOPIC, kdbConnectionPool.query("first exec sym from trade"));
+            Assertions.assertEquals((long) count * (count - 1) / 2, kdbConnectionPool.query("sum exec size from trade"));
+        });
+    }
 }
@@ -0,0 +1,540 @@
+package com.example.demo.testcontainers;
+
+import com.example.demo.elastic.AccessLog;
+import com.example.demo.elastic.AccessLogIndexer;
+import com.example.demo.kdb.KdbColumnarWriter;
+import com.example.demo.kdb.KdbConnectionPool;
+import com.example.demo.mqtt.MqttAsyncPublisher;
+import com.example.demo.mqtt.MqttBatchSink;
+import com.example.demo.mqtt.codec.BinaryRecord;
+import com.example.demo.mqtt.codec.BinaryRecordCodec;
+import com.example.demo.mqtt.codec.PayloadCodecRegistry;
+import com.example.demo.postgres.PgColumnType;
+import com.example.demo.postgres.PgCopyBuffer;
+import com.example.demo.postgres.PgCopyLoader;
+import com.example.demo.postgres.PgCopyTable;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.BindMode;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.elasticsearch.ElasticsearchContainer;
+import org.testcontainers.images.builder.ImageFromDockerfile;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.stream.IntStream;
+
+/**
+ * Load suite driving binary records at a fixed rate through the real MQTT inbound flow into the sinks.
+ * Excluded from {@code test}, run with {@code ./gradlew loadTest}:
+ * <pre>
+ * ./gradlew loadTest -Pload.rate=20000 -Pload.duration=60 -Pload.sinks=kdb,postgres -Pload.stream=true
+ * </pre>
+ * Latency is measured from the record timestamp, which is the time the record was <em>due</em> to be
+ * published, until the batch is dispatched to the sinks. A publisher falling behind therefore shows up as
+ * latency instead of silently lowering the rate. Throughput is taken from the rows the sinks committed, so
+ * the sustained rate covers the writes into the stores. The report is written as JSON to {@code build/reports/load}.
+ */
+@Slf4j
+@Tag("load")
+@DisplayName("MQTT 수집 부하 테스트")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@Testcontainers
+class LoadTest {
+
+    private static final int MOSQUITTO_PORT = 1883;
+    private static final int REDIS_PORT = 6379;
+    private static final int KDB_PORT = 5000;
+    private static final String TOPIC = "load/%d/telemetry";
+    private static final String KDB_TABLE = "load";
+
+    private static final int RATE = Integer.getInteger("load.rate", 5000);
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.duration", 30));
+    private static final Duration WARMUP = Duration.ofSeconds(Long.getLong("load.warmup", 5));
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(Long.getLong("load.drain-timeout", 60));
+    private static final int PUBLISHERS = Integer.getInteger("load.publishers", 4);
+    private static final int QOS = Integer.getInteger("load.qos", 1);
+    private static final boolean STREAM = Boolean.getBoolean("load.stream");
+    private static final Set<String> SINKS = Set.of(System.getProperty("load.sinks", "kdb,postgres,elastic").split(","));
+    private static final File REPORT_DIR = new File(System.getProperty("load.report-dir", "build/reports/load"));
+
+    @Container
+    private static final GenericContainer<?> mosquitto =
+            new GenericContainer<>(DockerImageName.parse("eclipse-mosquitto:2.0.10"))
+                    .withClasspathResourceMapping("conf/mosquitto.conf", "/mosquitto/config/mosquitto.conf", BindMode.READ_ONLY)
+                    .withExposedPorts(MOSQUITTO_PORT);
+
+    @Container
+    private static final GenericContainer<?> redis = new GenericContainer<>(DockerImageName.parse("redis:6.2-alpine"))
+            .withClasspathResourceMapping("conf/redis.conf", "/usr/local/etc/redis/redis.conf", BindMode.READ_ONLY)
+            .withCommand("redis-server /usr/local/etc/redis/redis.conf")
+            .withExposedPorts(REDIS_PORT);
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:14.6-alpine"))
+            .withDatabaseName("test")
+            .withUsername("test_user")
+            .withPassword("84z$Vw8&")
+            .withClasspathResourceMapping("db/parameters.sql", "/docker-entrypoint-initdb.d/parameters.sql", BindMode.READ_ONLY);
+
+    @Container
+    private static final GenericContainer<?> kdb =
+            new GenericContainer<>(new ImageFromDockerfile().withFileFromClasspath("Dockerfile", "docker/kdb/Dockerfile")
+                    .withFileFromClasspath("entrypoint.sh", "docker/kdb/entrypoint.sh")
+                    .withFileFromClasspath("q.q", "docker/kdb/q.q"))
+                    .withClasspathResourceMapping("docker/kdb/kc.lic", "/opt/kx/kc.lic", BindMode.READ_ONLY)
+                    .withExposedPorts(KDB_PORT);
+
+    @Container
+    private static final ElasticsearchContainer elasticsearch =
+            new ElasticsearchContainer(DockerImageName.parse("docker.elastic.co/elasticsearch/elasticsearch:7.17.8"))
+                    .withEnv("discovery.type", "single-node")
+                    .withEnv("ELASTIC_PASSWORD", "elasticpass")
+                    .withEnv("xpack.security.enabled", "true")
+                    .withExposedPorts(9200, 9300);
+
+    @DynamicPropertySource
+    static void registerLoadProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.mqtt.host", mosquitto::getHost);
+        registry.add("spring.mqtt.port", () -> mosquitto.getMappedPort(MOSQUITTO_PORT));
+        registry.add("spring.mqtt.topics", () -> "load/+/telemetry");
+        registry.add("spring.mqtt.qos", () -> QOS);
+        registry.add("spring.mqtt.connections", () -> 2);
+        registry.add("spring.mqtt.shared-group", () -> "load");
+        registry.add("spring.mqtt.codecs.[load/+/telemetry]", () -> BinaryRecordCodec.NAME);
+        registry.add("spring.mqtt.outbound.enabled", () -> true);
+        registry.add("spring.mqtt.outbound.connections", () -> PUBLISHERS);
+        registry.add("spring.mqtt.stream.enabled", () -> STREAM);
+
+        registry.add("spring.redis.host", redis::getHost);
+        registry.add("spring.redis.port", () -> redis.getMappedPort(REDIS_PORT));
+        registry.add("spring.redis.password", () -> "redispass");
+
+        registry.add("spring.datasource.driver-class-name", org.postgresql.Driver.class::getName);
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+
+        registry.add("spring.kdb.host", kdb::getHost);
+        registry.add("spring.kdb.port", () -> kdb.getMappedPort(KDB_PORT));
+        registry.add("spring.kdb.writer.enabled", () -> SINKS.contains("kdb"));
+        registry.add("spring.kdb.writer.topics.[load/+/telemetry]", () -> KDB_TABLE);
+        String[][] columns = {{"time", "timestamp"}, {"sym", "symbol"}, {"value", "float"}, {"seq", "long"}};
+        for (int i = 0; i < columns.length; i++) {
+            String name = columns[i][0];
+            String type = columns[i][1];
+            registry.add("spring.kdb.writer.tables.%s.columns[%d].name".formatted(KDB_TABLE, i), () -> name);
+            registry.add("spring.kdb.writer.tables.%s.columns[%d].type".formatted(KDB_TABLE, i), () -> type);
+        }
+
+        registry.add("spring.elasticsearch.uris", elasticsearch::getHttpHostAddress);
+        registry.add("spring.elasticsearch.username", () -> "elastic");
+        registry.add("spring.elasticsearch.password", () -> "elasticpass");
+
+        registry.add("load.sinks.postgres", () -> SINKS.contains("postgres"));
+        registry.add("load.sinks.elastic", () -> SINKS.contains("elastic"));
+    }
+
+    @Autowired
+    private MqttAsyncPublisher mqttAsyncPublisher;
+    @Autowired
+    private LatencyProbe latencyProbe;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private KdbConnectionPool kdbConnectionPool;
+    @Autowired
+    private PgCopyLoader pgCopyLoader;
+    @Autowired
+    private AccessLogIndexer accessLogIndexer;
+    @Autowired
+    private ObjectProvider<KdbColumnarWriter> kdbColumnarWriter;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DisplayName("고정 발행률 처리량 및 종단 지연")
+    @Test
+    void TestSustainedLoad() throws Exception {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS load_event (seq int8, sym text, value float8, created timestamptz)");
+        kdbConnectionPool.query(KDB_TABLE + ":([] time:`timestamp$(); sym:`symbol$(); value:`float$(); seq:`long$())");
+
+        long total = RATE * (WARMUP.toSeconds() + DURATION.toSeconds());
+        long measureFrom = epochNanos() + WARMUP.toNanos();
+        latencyProbe.reset(measureFrom, DURATION.plus(DRAIN_TIMEOUT));
+        Map<String, LongSupplier> committed = committedCounters();
+        Map<String, Long> baseline = new LinkedHashMap<>();
+        committed.forEach((sink, counter) -> baseline.put(sink, counter.getAsLong()));
+        Resources before = Resources.sample();
+        long started = System.nanoTime();
+
+        // [NOTE] 발행 스레드마다 전체 발행률을 나눠 맡고, 예정 시각을 레코드 타임스탬프로 사용한다.
+        ExecutorService executor = Executors.newFixedThreadPool(PUBLISHERS);
+        LongAdder failures = new LongAdder();
+        List<CompletableFuture<Void>> publishers = IntStream.range(0, PUBLISHERS)
+                .mapToObj(publisher -> CompletableFuture.runAsync(() -> publish(publisher, total / PUBLISHERS, failures), executor))
+                .toList();
+        CompletableFuture.allOf(publishers.toArray(CompletableFuture[]::new)).join();
+        long publishedAt = System.nanoTime();
+        executor.shutdown();
+
+        // [NOTE] 싱크 버퍼를 계속 비우면서 저장소에 커밋된 건수가 발행 건수에 도달할 때까지 기다린다.
+        long published = total / PUBLISHERS * PUBLISHERS - failures.sum();
+        long deadline = publishedAt + DRAIN_TIMEOUT.toNanos();
+        Map<String, Long> committedAt = new LinkedHashMap<>();
+        while (System.nanoTime() < deadline) {
+            pgCopyLoader.flush();
+            accessLogIndexer.flush();
+            kdbColumnarWriter.ifAvailable(KdbColumnarWriter::flush);
+            committed.forEach((sink, counter) -> {
+                if (counter.getAsLong() - baseline.get(sink) >= published) {
+                    committedAt.putIfAbsent(sink, System.nanoTime());
+                }
+            });
+            if (committedAt.size() == committed.size() && latencyProbe.getReceivedCount() >= published) {
+                break;
+            }
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        long drained = System.nanoTime();
+        Resources after = Resources.sample();
+        Map<String, Long> committedCounts = new LinkedHashMap<>();
+        committed.forEach((sink, counter) -> committedCounts.put(sink, counter.getAsLong() - baseline.get(sink)));
+
+        Map<String, Object> report = report(published, failures.sum(), committedCounts, committedAt, started, publishedAt,
+                drained, before, after);
+        writeReport(report);
+        Assertions.assertEquals(0, failures.sum(), "publish failures");
+        Assertions.assertTrue(latencyProbe.getReceivedCount() >= published,
+                "dispatched %d of %d messages".formatted(latencyProbe.getReceivedCount(), published));
+        committedCounts.forEach((sink, count) -> Assertions.assertTrue(count >= published,
+                "%s committed %d of %d messages".formatted(sink, count, published)));
+    }
+
+    /**
+     * Rows each enabled sink committed to its store, counted by the writer only once the write succeeded.
+     */
+    private Map<String, LongSupplier> committedCounters() {
+        Map<String, LongSupplier> counters = new LinkedHashMap<>();
+        if (SINKS.contains("kdb")) {
+            counters.put("kdb", kdbColumnarWriter.getObject()::getWrittenCount);
+        }
+        if (SINKS.contains("postgres")) {
+            counters.put("postgres", pgCopyLoader::getCopiedCount);
+        }
+        if (SINKS.contains("elastic")) {
+            counters.put("elastic", accessLogIndexer::getIndexedCount);
+        }
+        return counters;
+    }
+
+    private void publish(int publisher, long count, LongAdder failures) {
+        String topic = TOPIC.formatted(publisher);
+        long period = TimeUnit.SECONDS.toNanos(PUBLISHERS) / RATE;
+        long startNanos = System.nanoTime();
+        long startEpochNanos = epochNanos();
+        BinaryRecord record = new BinaryRecord();
+        for (long seq = 0; seq < count; seq++) {
+            long due = startNanos + seq * period;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            record.clear();
+            record.setSchemaId(publisher);
+            record.setTimestamp(startEpochNanos + (due - startNanos));
+            record.addDouble(seq * 0.5).addLong(seq);
+            mqttAsyncPublisher.publish(topic, BinaryRecordCodec.encode(record), QOS, false)
+                    .whenComplete((ignored, e) -> {
+                        if (e != null) {
+                            failures.increment();
+                        }
+                    });
+        }
+    }
+
+    private Map<String, Object> report(long published, long failed, Map<String, Long> committedCounts,
+                                       Map<String, Long> committedAt, long started, long publishedAt, long drained,
+                                       Resources before, Resources after) {
+        double seconds = (drained - started) / 1e9;
+        HistogramSnapshot latency = latencyProbe.getLatency().takeSnapshot();
+        Map<String, Object> latencyMillis = new LinkedHashMap<>();
+        for (ValueAtPercentile percentile : latency.percentileValues()) {
+            latencyMillis.put("p" + (percentile.percentile() * 100), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        latencyMillis.put("mean", latency.mean(TimeUnit.MILLISECONDS));
+        latencyMillis.put("max", latency.max(TimeUnit.MILLISECONDS));
+
+        Map<String, Object> sinks = new LinkedHashMap<>();
+        meterRegistry.find("mqtt.sink.duration").timers().forEach(timer -> sinks.put(timer.getId().getTag("sink"), Map.of(
+                "batches", timer.count(),
+                "meanMillis", timer.mean(TimeUnit.MILLISECONDS),
+                "maxMillis", timer.max(TimeUnit.MILLISECONDS))));
+
+        // [NOTE] 가장 느린 싱크가 전체 수집 속도를 결정하므로 커밋 속도의 최솟값을 지속 처리율로 보고한다.
+        Map<String, Object> committed = new LinkedHashMap<>();
+        double sustainedRate = committedCounts.isEmpty() ? latencyProbe.getReceivedCount() / seconds : Double.MAX_VALUE;
+        for (Map.Entry<String, Long> count : committedCounts.entrySet()) {
+            double rate = count.getValue() / ((committedAt.getOrDefault(count.getKey(), drained) - started) / 1e9);
+            committed.put(count.getKey(), Map.of("rows", count.getValue(), "rate", rate));
+            sustainedRate = Math.min(sustainedRate, rate);
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", Instant.now().minusNanos(System.nanoTime() - started).toString());
+        report.put("configuration", Map.of("rate", RATE, "durationSeconds", DURATION.toSeconds(), "warmupSeconds", WARMUP.toSeconds(),
+                "publishers", PUBLISHERS, "qos", QOS, "stream", STREAM, "sinks", SINKS));
+        report.put("published", published);
+        report.put("publishFailures", failed);
+        report.put("dispatched", latencyProbe.getReceivedCount());
+        report.put("committed", committed);
+        report.put("publishRate", published / ((publishedAt - started) / 1e9));
+        report.put("sustainedRate", sustainedRate);
+        report.put("latencyMillis", latencyMillis);
+        report.put("sinks", sinks);
+        report.put("gc", after.gcDelta(before, seconds));
+        return report;
+    }
+
+    private void writeReport(Map<String, Object> report) throws Exception {
+        REPORT_DIR.mkdirs();
+        File file = new File(REPORT_DIR, "load-%s.json".formatted(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")
+                .withZone(ZoneOffset.UTC).format(Instant.now())));
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, report);
+        log.info("Load report {}: {}", file, objectMapper.writeValueAsString(report));
+    }
+
+    private static long epochNanos() {
+        Instant now = Instant.now();
+        return now.getEpochSecond() * 1_000_000_000L + now.getNano();
+    }
+
+    /**
+     * Collector and allocation counters of the JVM, sampled around the run.
+     */
+    private record Resources(long collections, long collectionMillis, long allocatedBytes) {
+        static Resources sample() {
+            long collections = 0;
+            long collectionMillis = 0;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                collections += Math.max(0, gc.getCollectionCount());
+                collectionMillis += Math.max(0, gc.getCollectionTime());
+            }
+            long allocatedBytes = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                    ? threads.getTotalThreadAllocatedBytes() : -1;
+            return new Resources(collections, collectionMillis, allocatedBytes);
+        }
+
+        Map<String, Object> gcDelta(Resources before, double seconds) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            delta.put("collections", collections - before.collections);
+            delta.put("collectionMillis", collectionMillis - before.collectionMillis);
+            delta.put("collectionTimeRatio", (collectionMillis - before.collectionMillis) / (seconds * 1000));
+            if (allocatedBytes >= 0 && before.allocatedBytes >= 0) {
+                delta.put("allocationMegabytesPerSecond", (allocatedBytes - before.allocatedBytes) / seconds / (1 << 20));
+            }
+            return delta;
+        }
+    }
+
+    /**
+     * Records the latency of every message from its record timestamp until its batch is dispatched to the sinks.
+     * Whether the rows were written is checked on the committed counts of the sinks, not here.
+     */
+    static class LatencyProbe implements MqttBatchSink, Ordered {
+
+        private final PayloadCodecRegistry payloadCodecRegistry;
+        private final LongAdder received = new LongAdder();
+        private volatile long measureFrom = Long.MAX_VALUE;
+        private volatile Timer latency;
+
+        LatencyProbe(PayloadCodecRegistry payloadCodecRegistry) {
+            this.payloadCodecRegistry = payloadCodecRegistry;
+            reset(Long.MAX_VALUE, Duration.ofMinutes(2));
+        }
+
+        void reset(long measureFrom, Duration expiry) {
+            this.measureFrom = measureFrom;
+            received.reset();
+            // [NOTE] 측정 구간 전체가 한 윈도우에 담기도록 만료를 실행 시간보다 길게 둔다.
+            latency = Timer.builder("load.latency")
+                    .publishPercentiles(0.5, 0.99, 0.999)
+                    .percentilePrecision(3)
+                    .distributionStatisticExpiry(expiry)
+                    .distributionStatisticBufferLength(1)
+                    .register(new SimpleMeterRegistry());
+        }
+
+        @Override
+        public void accept(List<Message<?>> batch) {
+            long now = epochNanos();
+            Timer latency = this.latency;
+            for (Message<?> message : batch) {
+                Object payload = payloadCodecRegistry.decode(message);
+                try {
+                    if (payload instanceof BinaryRecord record) {
+                        received.increment();
+                        if (record.getTimestamp() >= measureFrom) {
+                            latency.record(now - record.getTimestamp(), TimeUnit.NANOSECONDS);
+                        }
+                    }
+                } finally {
+                    payloadCodecRegistry.release(message, payload);
+                }
+            }
+        }
+
+        long getReceivedCount() {
+            return received.sum();
+        }
+
+        Timer getLatency() {
+            return latency;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+
+    /**
+     * Copies every record into {@code load_event} through the {@link PgCopyLoader}.
+     */
+    static class PgLoadSink implements MqttBatchSink, Ordered {
+
+        private static final PgCopyTable TABLE = new PgCopyTable("load_event",
+                new String[]{"seq", "sym", "value", "created"},
+                new PgColumnType[]{PgColumnType.INT8, PgColumnType.TEXT, PgColumnType.FLOAT8, PgColumnType.TIMESTAMPTZ});
+
+        private final PgCopyLoader pgCopyLoader;
+        private final PayloadCodecRegistry payloadCodecRegistry;
+
+        PgLoadSink(PgCopyLoader pgCopyLoader, PayloadCodecRegistry payloadCodecRegistry) {
+            this.pgCopyLoader = pgCopyLoader;
+            this.payloadCodecRegistry = payloadCodecRegistry;
+        }
+
+        @Override
+        public void accept(List<Message<?>> batch) {
+            PgCopyBuffer buffer = pgCopyLoader.buffer(TABLE);
+            for (Message<?> message : batch) {
+                Object payload = payloadCodecRegistry.decode(message);
+                try {
+                    if (payload instanceof BinaryRecord record) {
+                        buffer.beginRow();
+                        buffer.putLong(record.getLong(1))
+                                .putText(message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class))
+                                .putDouble(record.getDouble(0))
+                                .putTimestamp(record.getTimestamp() / 1000);
+                        buffer.endRow();
+                    }
+                } finally {
+                    payloadCodecRegistry.release(message, payload);
+                }
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+
+    /**
+     * Indexes every record as an {@link AccessLog} document through the {@link AccessLogIndexer} bulk processor.
+     */
+    static class ElasticLoadSink implements MqttBatchSink, Ordered {
+
+        private final AccessLogIndexer accessLogIndexer;
+        private final PayloadCodecRegistry payloadCodecRegistry;
+
+        ElasticLoadSink(AccessLogIndexer accessLogIndexer, PayloadCodecRegistry payloadCodecRegistry) {
+            this.accessLogIndexer = accessLogIndexer;
+            this.payloadCodecRegistry = payloadCodecRegistry;
+        }
+
+        @Override
+        public void accept(List<Message<?>> batch) {
+            for (Message<?> message : batch) {
+                Object payload = payloadCodecRegistry.decode(message);
+                try {
+                    if (payload instanceof BinaryRecord record) {
+                        Instant created = Instant.ofEpochSecond(0, record.getTimestamp());
+                        accessLogIndexer.index(new AccessLog("127.0.0.1", "PUBLISH", "load-test", "MQTT",
+                                Long.toString(record.getLong(1)), message.getHeaders().get(MqttHeaders.RECEIVED_TOPIC, String.class), created));
+                    }
+                } finally {
+                    payloadCodecRegistry.release(message, payload);
+                }
+            }
+        }
+
+        @Override
+        public int getOrder() {
+            return 0;
+        }
+    }
+
+    @TestConfiguration
+    static class LoadSinkConfig {
+        @Bean
+        public LatencyProbe latencyProbe(PayloadCodecRegistry payloadCodecRegistry) {
+            return new LatencyProbe(payloadCodecRegistry);
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "load.sinks.postgres", havingValue = "true")
+        public PgLoadSink pgLoadSink(PgCopyLoader pgCopyLoader, PayloadCodecRegistry payloadCodecRegistry) {
+            return new PgLoadSink(pgCopyLoader, payloadCodecRegistry);
+        }
+
+        @Bean
+        @ConditionalOnProperty(name = "load.sinks.elastic", havingValue = "true")
+        public ElasticLoadSink elasticLoadSink(AccessLogIndexer accessLogIndexer, PayloadCodecRegistry payloadCodecRegistry) {
+            return new ElasticLoadSink(accessLogIndexer, payloadCodecRegistry);
+        }
+    }
+}
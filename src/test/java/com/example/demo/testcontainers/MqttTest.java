@@ -1,7 +1,10 @@
 package com.example.demo.testcontainers;
 
 
+import com.example.demo.mqtt.MqttAsyncPublisher;
+import com.example.demo.mqtt.MqttInboundRegistrar;
 import com.example.demo.mqtt.MqttProperties;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.eclipse.paho.client.mqttv3.MqttClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
@@ -12,8 +15,13 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.integration.mqtt.core.DefaultMqttPahoClientFactory;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.SubscribableChannel;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.BindMode;
@@ -22,7 +30,14 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.IntStream;
 
 @Slf4j
@@ -32,6 +47,7 @@ import java.util.stream.IntStream;
 class MqttTest {
 
     private static final int MOSQUITTO_PORT = 1883;
+    private static final String SHARED_TOPIC = "shared";
 
     @Container
     private static final GenericContainer<?> mosquitto =
@@ -43,10 +59,21 @@ class MqttTest {
     static void registerMqttProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.mqtt.host", mosquitto::getHost);
         registry.add("spring.mqtt.port", () -> mosquitto.getMappedPort(MOSQUITTO_PORT));
+        registry.add("spring.mqtt.topics", () -> "test," + SHARED_TOPIC);
+        registry.add("spring.mqtt.connections", () -> 2);
+        registry.add("spring.mqtt.shared-group", () -> "demo");
+        registry.add("spring.mqtt.outbound.enabled", () -> true);
     }
 
     @Autowired
     private MqttProperties mqttProperties;
+    @Autowired
+    @Qualifier("mqttBatchChannel")
+    private SubscribableChannel mqttBatchChannel;
+    @Autowired
+    private MqttAsyncPublisher mqttAsyncPublisher;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     @DisplayName("Mqtt Broker 버전")
     @Test
@@ -84,4 +111,72 @@ class MqttTest {
         });
     }
 
+    @DisplayName("공유 구독 부하 분산")
+    @Test
+    @SuppressWarnings("unchecked")
+    void TestSharedSubscription() throws Exception {
+        int count = 200;
+        String broker = "tcp://%s:%s".formatted(mqttProperties.getHost(), mqttProperties.getPort());
+
+        Map<Integer, AtomicInteger> received = new ConcurrentHashMap<>();
+        AtomicInteger total = new AtomicInteger();
+        MessageHandler counter = message -> ((List<Message<?>>) message.getPayload()).stream()
+                .filter(m -> SHARED_TOPIC.equals(m.getHeaders().get(MqttHeaders.RECEIVED_TOPIC)))
+                .forEach(m -> {
+                    Integer connection = m.getHeaders().get(MqttInboundRegistrar.CONNECTION_HEADER, Integer.class);
+                    received.computeIfAbsent(connection, key -> new AtomicInteger()).incrementAndGet();
+                    total.incrementAndGet();
+                });
+        mqttBatchChannel.subscribe(counter);
+
+        MqttClient mqttClient = new MqttClient(broker, UUID.randomUUID().toString(), new MemoryPersistence());
+        try {
+            mqttClient.connect();
+            for (int i = 0; i < count; i++) {
+                MqttMessage message = new MqttMessage(("Shared Message - " + i).getBytes());
+                message.setQos(mqttProperties.getQos());
+                mqttClient.publish(SHARED_TOPIC, message);
+            }
+
+            long deadline = System.currentTimeMillis() + 10000;
+            while (total.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            // wait a little longer so duplicated deliveries would show up
+            Thread.sleep(500);
+
+            Assertions.assertEquals(count, total.get());
+            Assertions.assertEquals(2, received.size());
+            Assertions.assertTrue(meterRegistry.get("mqtt.inbound.messages").functionCounter().count() >= count);
+            Assertions.assertTrue(meterRegistry.get("mqtt.pipeline.dispatch").timer().count() > 0);
+            received.values().forEach(connectionCount -> Assertions.assertTrue(connectionCount.get() > 0));
+            log.info("Shared subscription split: {}", received);
+        } finally {
+            mqttBatchChannel.unsubscribe(counter);
+            mqttClient.disconnect();
+            mqttClient.close();
+        }
+    }
+
+    @DisplayName("비동기 대량 발행")
+    @Test
+    void TestAsyncPublish() throws Exception {
+        int count = 10000;
+        long deadline = System.currentTimeMillis() + 10000;
+        while (!mqttAsyncPublisher.isConnected() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+
+        long started = System.nanoTime();
+        CompletableFuture<?>[] futures = IntStream.range(0, count)
+                .mapToObj(value -> mqttAsyncPublisher.publish("outbound", ("Async Message - " + value).getBytes(), mqttProperties.getQos(), false))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).get(30, TimeUnit.SECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        Assertions.assertTrue(Arrays.stream(futures).noneMatch(CompletableFuture::isCompletedExceptionally));
+        Assertions.assertEquals(0, mqttAsyncPublisher.getInflightCount());
+        log.info("Published {} messages in {} ms", count, elapsed);
+    }
+
 }
@@ -1,5 +1,12 @@
 package com.example.demo.testcontainers;
 
+import com.example.demo.postgres.PgColumnType;
+import com.example.demo.postgres.PgCopyBuffer;
+import com.example.demo.postgres.PgCopyLoader;
+import com.example.demo.postgres.PgCopyTable;
+import com.example.demo.postgres.PgPartitionManager;
+import com.example.demo.postgres.PgStatStatementsCollector;
+import com.example.demo.postgres.PostgresProperties;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.DisplayName;
@@ -20,6 +27,13 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
 @ActiveProfiles("test")
 @Slf4j
 @DisplayName("포스트그레스 통합 테스트")
@@ -52,6 +66,14 @@ class PostgresTest {
     private DataSourceProperties dataSourceProperties;
     @Autowired
     private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PgCopyLoader pgCopyLoader;
+    @Autowired
+    private PgPartitionManager pgPartitionManager;
+    @Autowired
+    private PostgresProperties postgresProperties;
+    @Autowired
+    private PgStatStatementsCollector pgStatStatementsCollector;
 
     @Order(0)
     @DisplayName("JDBC 드라이버 체크")
@@ -90,4 +112,84 @@ class PostgresTest {
         Assertions.assertEquals("pg_stat_statements", extname);
     }
 
+    @Order(4)
+    @DisplayName("COPY 대량 적재")
+    @Test
+    void TestCopyLoader() {
+        int count = 50000;
+        jdbcTemplate.execute("CREATE TABLE copy_event (id int8, name text, value float8, created timestamptz)");
+
+        PgCopyTable table = new PgCopyTable("copy_event",
+                new String[]{"id", "name", "value", "created"},
+                new PgColumnType[]{PgColumnType.INT8, PgColumnType.TEXT, PgColumnType.FLOAT8, PgColumnType.TIMESTAMPTZ});
+        PgCopyBuffer buffer = pgCopyLoader.buffer(table);
+        long created = Instant.parse("2023-01-01T00:00:00Z").toEpochMilli() * 1000L;
+        for (int i = 0; i < count; i++) {
+            buffer.beginRow();
+            buffer.putLong(i).putText("이벤트-" + i).putDouble(i * 0.5).putTimestamp(created + i);
+            buffer.endRow();
+        }
+        pgCopyLoader.flush();
+
+        Assertions.assertEquals(count, jdbcTemplate.queryForObject("SELECT count(*) FROM copy_event", Integer.class));
+        Assertions.assertEquals("이벤트-42", jdbcTemplate.queryForObject("SELECT name FROM copy_event WHERE id = 42", String.class));
+        Assertions.assertEquals(Instant.parse("2023-01-01T00:00:00.000042Z"),
+                jdbcTemplate.queryForObject("SELECT created FROM copy_event WHERE id = 42", OffsetDateTime.class).toInstant());
+        Assertions.assertEquals(count, pgCopyLoader.getCopiedCount());
+    }
+
+    @Order(5)
+    @DisplayName("파티션 사전 생성 및 만료")
+    @Test
+    void TestPartitionManager() {
+        PostgresProperties.Table table = postgresProperties.getPartition().getTables().get(0);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS event_p200001 PARTITION OF event FOR VALUES FROM ('2000-01-01T00:00Z') TO ('2000-02-01T00:00Z')");
+
+        pgPartitionManager.maintain();
+
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<String> partitions = pgPartitionManager.listPartitions(table);
+        Assertions.assertFalse(partitions.contains("event_p200001"));
+        for (int i = 0; i <= table.getPremake(); i++) {
+            String partition = "event_p" + DateTimeFormatter.ofPattern("yyyyMM").format(current.plusMonths(i));
+            Assertions.assertTrue(partitions.contains(partition), partition);
+        }
+
+        String indexMethod = jdbcTemplate.queryForObject("""
+                SELECT am.amname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid JOIN pg_am am ON am.oid = c.relam
+                WHERE i.indrelid = ?::regclass""", String.class, "event_p" + DateTimeFormatter.ofPattern("yyyyMM").format(current));
+        Assertions.assertEquals("brin", indexMethod);
+
+        jdbcTemplate.update("INSERT INTO event (id, name, value, created) VALUES (1, 'now', 1.0, now())");
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM event", Integer.class));
+    }
+
+    @Order(6)
+    @DisplayName("pg_stat_statements 구간별 상위 쿼리 수집")
+    @Test
+    void TestStatStatements() {
+        pgStatStatementsCollector.collect();
+        for (int i = 0; i < 20; i++) {
+            jdbcTemplate.queryForObject("SELECT count(*) FROM copy_event WHERE value > ?", Integer.class, i * 100.0);
+        }
+        jdbcTemplate.queryForObject("SELECT pg_sleep(0.2)", String.class);
+
+        // [NOTE] 직전 스냅샷과의 차이만 집계되므로 호출 횟수는 누적값이 아닌 구간 내 횟수와 같아야 한다.
+        PgStatStatementsCollector.Snapshot snapshot = pgStatStatementsCollector.collect();
+        Assertions.assertNotNull(snapshot.since());
+        Assertions.assertTrue(snapshot.topByTotalTime().size() <= postgresProperties.getStatements().getTopN());
+
+        PgStatStatementsCollector.Statement count = snapshot.topByTotalTime().stream()
+                .filter(statement -> statement.query().contains("FROM copy_event WHERE value >"))
+                .findFirst()
+                .orElseThrow();
+        Assertions.assertEquals(20, count.intervalCalls());
+        Assertions.assertTrue(count.calls() >= count.intervalCalls());
+
+        PgStatStatementsCollector.Statement sleep = snapshot.topByMeanTime().get(0);
+        Assertions.assertTrue(sleep.query().contains("pg_sleep"), sleep.query());
+        Assertions.assertTrue(sleep.intervalMeanTime() >= 200.0);
+        Assertions.assertEquals(snapshot, pgStatStatementsCollector.getLastSnapshot());
+    }
+
 }
@@ -1,5 +1,13 @@
 package com.example.demo.testcontainers;
 
+import com.example.demo.cache.SmileRedisSerializer;
+import com.example.demo.cache.TwoTierCacheManager;
+import com.example.demo.cache.TwoTierCacheProperties;
+import com.example.demo.mqtt.MqttProperties;
+import com.example.demo.mqtt.MqttSinkDispatcher;
+import com.example.demo.mqtt.MqttStreamBuffer;
+import com.example.demo.session.NearCacheSessionRepository;
+import com.example.demo.session.SessionNearCacheProperties;
 import io.lettuce.core.RedisClient;
 import io.lettuce.core.RedisCommandExecutionException;
 import io.lettuce.core.RedisURI;
@@ -9,6 +17,15 @@ import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.BatchStrategies;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.integration.mqtt.support.MqttHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.BindMode;
@@ -17,7 +34,14 @@ import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 import org.testcontainers.utility.DockerImageName;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
 
 @Slf4j
 @DisplayName("레디스 통합 테스트")
@@ -37,6 +61,24 @@ class RedisTest {
     @Autowired
     private RedisProperties redisProperties;
 
+    @Autowired
+    private NearCacheSessionRepository sessionRepository;
+
+    @Autowired
+    private RedisTemplate<String, Object> sessionRedisOperations;
+
+    @Autowired
+    private SessionNearCacheProperties sessionNearCacheProperties;
+
+    @Autowired
+    private TwoTierCacheManager cacheManager;
+
+    @Autowired
+    private TwoTierCacheProperties twoTierCacheProperties;
+
+    @Autowired
+    private RedisConnectionFactory redisConnectionFactory;
+
     private RedisClient redisClient;
 
     @BeforeEach
@@ -53,6 +95,9 @@ class RedisTest {
     static void registerRedisProperties(DynamicPropertyRegistry registry) {
         registry.add("spring.redis.host", () -> redis.getHost());
         registry.add("spring.redis.port", () -> redis.getMappedPort(REDIS_PORT));
+        registry.add("spring.redis.password", () -> "redispass");
+        registry.add("spring.cache.two-tier.enabled", () -> true);
+        registry.add("spring.session.near-cache.enabled", () -> true);
     }
 
     @Order(0)
@@ -80,4 +125,186 @@ class RedisTest {
             });
         }
     }
+
+    @Order(2)
+    @DisplayName("세션 니어 캐시 변경 속성 저장")
+    @Test
+    void TestNearCacheSessionDirtyWrite() {
+        NearCacheSessionRepository.NearCacheSession session = sessionRepository.createSession();
+        session.setAttribute("user", "kdevkr");
+        sessionRepository.save(session);
+
+        String key = sessionNearCacheProperties.getNamespace() + ":sessions:" + session.getId();
+        Map<Object, Object> entries = sessionRedisOperations.opsForHash().entries(key);
+        Assertions.assertEquals("kdevkr", entries.get("sessionAttr:user"));
+        Assertions.assertTrue(sessionRedisOperations.getExpire(key) > 0);
+
+        // [NOTE] 변경되지 않은 속성은 다시 쓰지 않습니다.
+        sessionRedisOperations.opsForHash().put(key, "sessionAttr:user", "other");
+        NearCacheSessionRepository.NearCacheSession found = sessionRepository.findById(session.getId());
+        Assertions.assertEquals("kdevkr", found.getAttribute("user"));
+        found.setAttribute("role", "admin");
+        found.removeAttribute("user");
+        sessionRepository.save(found);
+
+        entries = sessionRedisOperations.opsForHash().entries(key);
+        Assertions.assertEquals("admin", entries.get("sessionAttr:role"));
+        Assertions.assertFalse(entries.containsKey("sessionAttr:user"));
+
+        sessionRepository.deleteById(session.getId());
+        Assertions.assertNull(sessionRepository.findById(session.getId()));
+        Assertions.assertFalse(Boolean.TRUE.equals(sessionRedisOperations.hasKey(key)));
+    }
+
+    @Order(3)
+    @DisplayName("세션 니어 캐시 노드 간 무효화")
+    @Test
+    void TestNearCacheSessionInvalidation() throws InterruptedException {
+        NearCacheSessionRepository.NearCacheSession session = sessionRepository.createSession();
+        session.setAttribute("count", 1);
+        sessionRepository.save(session);
+        Assertions.assertEquals(1, (Integer) sessionRepository.findById(session.getId()).getAttribute("count"));
+
+        // [NOTE] 다른 노드의 저장소가 같은 세션을 변경합니다.
+        NearCacheSessionRepository otherNode =
+                new NearCacheSessionRepository(sessionRedisOperations, sessionNearCacheProperties, Duration.ofMinutes(30));
+        NearCacheSessionRepository.NearCacheSession other = otherNode.findById(session.getId());
+        other.setAttribute("count", 2);
+        otherNode.save(other);
+
+        Integer count = null;
+        for (int i = 0; i < 50; i++) {
+            count = sessionRepository.findById(session.getId()).getAttribute("count");
+            if (count == 2) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals(2, count);
+        sessionRepository.deleteById(session.getId());
+    }
+
+    @Order(4)
+    @DisplayName("2단계 캐시 단일 로딩 및 원격 조회")
+    @Test
+    void TestTwoTierCache() throws InterruptedException {
+        Cache cache = cacheManager.getCache("reference");
+        Assertions.assertNotNull(cache);
+        cache.clear();
+
+        AtomicInteger loads = new AtomicInteger();
+        List<String> values = IntStream.range(0, 16)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> cache.get("code", () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(200);
+                    return "value";
+                })))
+                .toList().stream()
+                .map(CompletableFuture::join)
+                .toList();
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertTrue(values.stream().allMatch("value"::equals));
+
+        // [NOTE] 로컬 캐시가 비어있는 다른 노드는 레디스에서 값을 읽습니다.
+        TwoTierCacheManager otherNode = new TwoTierCacheManager(twoTierCacheProperties,
+                RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory, BatchStrategies.scan(1000)),
+                new SmileRedisSerializer(), new StringRedisTemplate(redisConnectionFactory));
+        Cache other = otherNode.getCache("reference");
+        Assertions.assertEquals("value", other.get("code", () -> "reloaded"));
+        Assertions.assertEquals(1, loads.get());
+
+        // [NOTE] 다른 노드가 값을 변경하면 무효화 메시지를 받아 로컬 캐시를 비웁니다.
+        other.put("code", "updated");
+        Object value = null;
+        for (int i = 0; i < 50; i++) {
+            value = cache.get("code").get();
+            if ("updated".equals(value)) {
+                break;
+            }
+            Thread.sleep(100);
+        }
+        Assertions.assertEquals("updated", value);
+
+        cache.put("empty", null);
+        Assertions.assertNotNull(other.get("empty"));
+        Assertions.assertNull(other.get("empty").get());
+
+        cache.evict("code");
+        Assertions.assertNull(cache.get("code"));
+        cache.clear();
+        Assertions.assertNull(cache.get("empty"));
+    }
+
+    @Order(5)
+    @DisplayName("레디스 스트림 버퍼 전달 및 재처리")
+    @Test
+    void TestMqttStreamBuffer() throws InterruptedException {
+        MqttProperties.Stream properties = new MqttProperties.Stream();
+        properties.setKey("mqtt:test");
+        properties.setConsumers(1);
+        properties.setBlock(Duration.ofMillis(100));
+        properties.setClaimIdle(Duration.ofMillis(500));
+        properties.setClaimInterval(Duration.ofMillis(100));
+
+        // [NOTE] 첫 배치는 실패하고, 대기 중인 항목을 다시 가져와 처리합니다.
+        AtomicInteger attempts = new AtomicInteger();
+        List<Message<?>> received = new CopyOnWriteArrayList<>();
+        MqttStreamBuffer streamBuffer = new MqttStreamBuffer(properties, redisConnectionFactory,
+                new MqttSinkDispatcher(List.of(batch -> {
+                    if (attempts.getAndIncrement() == 0) {
+                        throw new IllegalStateException("sink unavailable");
+                    }
+                    received.addAll(batch);
+                })));
+        streamBuffer.start();
+        try {
+            List<Message<?>> batch = IntStream.range(0, 10)
+                    .mapToObj(i -> MessageBuilder.withPayload(("payload-" + i).getBytes())
+                            .setHeader(MqttHeaders.RECEIVED_TOPIC, "test")
+                            .build())
+                    .<Message<?>>map(m -> m)
+                    .toList();
+            streamBuffer.append(batch);
+
+            for (int i = 0; i < 50 && received.size() < batch.size(); i++) {
+                Thread.sleep(100);
+            }
+            Assertions.assertEquals(batch.size(), received.size());
+            Assertions.assertEquals("test", received.get(0).getHeaders().get(MqttHeaders.RECEIVED_TOPIC));
+            Assertions.assertEquals("payload-0", new String((byte[]) received.get(0).getPayload()));
+            Assertions.assertTrue(streamBuffer.getClaimedCount() > 0);
+            Assertions.assertEquals(batch.size(), streamBuffer.getAcknowledgedCount());
+        } finally {
+            streamBuffer.stop();
+        }
+    }
+
+    @Order(6)
+    @DisplayName("세션 니어 캐시 접근 시 만료 시간 갱신")
+    @Test
+    void TestNearCacheSessionTouch() {
+        NearCacheSessionRepository.NearCacheSession session = sessionRepository.createSession();
+        Instant lastAccessedTime = session.getLastAccessedTime();
+        sessionRepository.save(session);
+        String key = sessionNearCacheProperties.getNamespace() + ":sessions:" + session.getId();
+        sessionRedisOperations.expire(key, Duration.ofSeconds(10));
+
+        // [NOTE] 갱신 주기보다 짧은 간격으로 접근하며, 마지막 레디스 쓰기 기준으로 갱신 주기가 지나면 만료 시간이 늘어납니다.
+        Duration step = sessionNearCacheProperties.getTouchInterval().dividedBy(3);
+        for (int i = 0; i < 2; i++) {
+            lastAccessedTime = lastAccessedTime.plus(step);
+            NearCacheSessionRepository.NearCacheSession found = sessionRepository.findById(session.getId());
+            found.setLastAccessedTime(lastAccessedTime);
+            sessionRepository.save(found);
+            Assertions.assertTrue(sessionRedisOperations.getExpire(key) <= 10);
+        }
+        lastAccessedTime = lastAccessedTime.plus(step);
+        NearCacheSessionRepository.NearCacheSession found = sessionRepository.findById(session.getId());
+        found.setLastAccessedTime(lastAccessedTime);
+        sessionRepository.save(found);
+        Assertions.assertTrue(sessionRedisOperations.getExpire(key) > 10);
+        Assertions.assertEquals(lastAccessedTime.toEpochMilli(), sessionRedisOperations.opsForHash().get(key, "lastAccessedTime"));
+
+        sessionRepository.deleteById(session.getId());
+    }
 }
@@ -1 +1,8 @@
 CREATE EXTENSION IF NOT EXISTS pg_stat_statements;
+
+CREATE TABLE IF NOT EXISTS event (
+    id bigint NOT NULL,
+    name text,
+    value double precision,
+    created timestamptz NOT NULL
+) PARTITION BY RANGE (created);
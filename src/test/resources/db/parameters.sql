@@ -1 +1,2 @@
-ALTER SYSTEM SET max_connections = 500;
\ No newline at end of file
+ALTER SYSTEM SET max_connections = 500;
+ALTER SYSTEM SET shared_preload_libraries = 'pg_stat_statements';